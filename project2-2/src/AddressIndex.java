@@ -0,0 +1,172 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 주소로 그 주소를 포함하는 control section과 가장 가까운 symbol을 찾는 역방향 index. load가 끝났을 때 한 번 만들어서
+ * 실행 로그, 프로파일러, 역어셈블 화면 등에서 사용한다.
+ *
+ * control section은 256byte 단위 page table로 찾는다. page 전체가 한 section에 속하면 O(1)에 찾고, 여러 section이
+ * 걸쳐 있는 page만 시작 주소 배열에서 이진 탐색한다. symbol은 주소순으로 정렬한 배열에서 이진 탐색으로 찾는다.
+ */
+public class AddressIndex {
+    static final int PAGE_BITS = 8;
+    static final int MIXED_PAGE = -1;
+    static final int EMPTY_PAGE = -2;
+
+    // control section. 시작 주소 순으로 정렬되어 있다.
+    final int[] sectionStarts;
+    final int[] sectionEnds;
+    final String[] sectionNames;
+    private final int[] pageTable;
+
+    // symbol. 주소 순으로 정렬되어 있다.
+    final int[] symbolAddrs;
+    final String[] symbolNames;
+
+    /**
+     * 비어있는 index. 프로그램을 load하기 전에 사용한다.
+     */
+    public static final AddressIndex EMPTY = new AddressIndex(new int[0], new int[0], new String[0], new int[0], new String[0]);
+
+    private AddressIndex(int[] sectionStarts, int[] sectionEnds, String[] sectionNames,
+                         int[] symbolAddrs, String[] symbolNames) {
+        this.sectionStarts = sectionStarts;
+        this.sectionEnds = sectionEnds;
+        this.sectionNames = sectionNames;
+        this.symbolAddrs = symbolAddrs;
+        this.symbolNames = symbolNames;
+
+        // page 전체가 한 section에 속하면 그 section의 index를, 여러 section에 걸치면 MIXED_PAGE를 기록한다.
+        pageTable = new int[65536 >> PAGE_BITS];
+        Arrays.fill(pageTable, EMPTY_PAGE);
+        for (int i = 0; i < sectionStarts.length; i++) {
+            int firstPage = sectionStarts[i] >> PAGE_BITS;
+            int lastPage = (Math.max(sectionEnds[i], sectionStarts[i] + 1) - 1) >> PAGE_BITS;
+            for (int p = firstPage; p <= lastPage && p < pageTable.length; p++) {
+                boolean whole = sectionStarts[i] <= (p << PAGE_BITS) && sectionEnds[i] >= ((p + 1) << PAGE_BITS);
+                pageTable[p] = whole && pageTable[p] == EMPTY_PAGE ? i : MIXED_PAGE;
+            }
+        }
+    }
+
+    /**
+     * ResourceManager에 적재된 control section과 모든 프로그램의 ESTAB으로 index를 만든다.
+     */
+    public static AddressIndex build(ResourceManager rMgr) {
+        ArrayList<Map.Entry<Integer, String[]>> sections = new ArrayList<>(rMgr.csInfos.entrySet());
+        sections.sort(Map.Entry.comparingByKey());
+
+        int n = sections.size();
+        int[] starts = new int[n];
+        int[] ends = new int[n];
+        String[] names = new String[n];
+        for (int i = 0; i < n; i++) {
+            starts[i] = sections.get(i).getKey();
+            ends[i] = starts[i] + Integer.parseInt(sections.get(i).getValue()[2], 16);
+            names[i] = sections.get(i).getValue()[0];
+        }
+
+        int count = 0;
+        for (LoadedProgram program : rMgr.programs) count += program.estab.size();
+
+        // 주소 순으로 정렬하기 위해 (주소 << 32 | 순서)를 정렬한 뒤 이름을 찾아 채운다.
+        long[] order = new long[count];
+        String[] all = new String[count];
+        int k = 0;
+        for (LoadedProgram program : rMgr.programs) {
+            SymbolTable estab = program.estab;
+            for (int i = 0; i < estab.size(); i++, k++) {
+                order[k] = ((long) estab.getAddress(i) << 32) | k;
+                all[k] = estab.getSymbol(i);
+            }
+        }
+        Arrays.sort(order);
+
+        int[] symbolAddrs = new int[count];
+        String[] symbolNames = new String[count];
+        for (int i = 0; i < count; i++) {
+            symbolAddrs[i] = (int) (order[i] >> 32);
+            symbolNames[i] = all[(int) order[i]];
+        }
+
+        return new AddressIndex(starts, ends, names, symbolAddrs, symbolNames);
+    }
+
+    /**
+     * 주소를 포함하는 control section의 index를 찾는다.
+     *
+     * @return section의 index. 어느 section에도 속하지 않으면 -1
+     */
+    int sectionIndexAt(int address) {
+        if (address < 0 || address >= 65536) return -1;
+
+        int page = pageTable[address >> PAGE_BITS];
+        if (page >= 0) return page;
+        if (page == EMPTY_PAGE) return -1;
+
+        int i = floor(sectionStarts, address);
+        return i >= 0 && address < sectionEnds[i] ? i : -1;
+    }
+
+    /**
+     * 주소를 포함하는 control section의 시작 주소를 돌려준다. csInfos의 key와 같다.
+     *
+     * @return section 시작 주소. 어느 section에도 속하지 않으면 -1
+     */
+    public int sectionAt(int address) {
+        int i = sectionIndexAt(address);
+        return i < 0 ? -1 : sectionStarts[i];
+    }
+
+    /**
+     * @return 주소를 포함하는 control section의 이름. 없으면 null
+     */
+    public String sectionNameAt(int address) {
+        int i = sectionIndexAt(address);
+        return i < 0 ? null : sectionNames[i];
+    }
+
+    /**
+     * @return 주소와 같거나 주소보다 앞에 있는 가장 가까운 symbol의 index. 없으면 -1
+     */
+    int symbolIndexAt(int address) {
+        return floor(symbolAddrs, address);
+    }
+
+    /**
+     * @return 주소와 같거나 주소보다 앞에 있는 가장 가까운 symbol의 이름. 없으면 null
+     */
+    public String symbolAt(int address) {
+        int i = symbolIndexAt(address);
+        return i < 0 ? null : symbolNames[i];
+    }
+
+    /**
+     * 주소를 "symbol+offset" 형태로 나타낸다. 앞에 symbol이 없으면 16진수 주소를 돌려준다.
+     */
+    public String annotate(int address) {
+        int i = symbolIndexAt(address);
+        if (i < 0) return String.format("%06X", address);
+
+        int offset = address - symbolAddrs[i];
+        return offset == 0 ? symbolNames[i] : String.format("%s+%X", symbolNames[i], offset);
+    }
+
+    /**
+     * 정렬된 배열에서 key와 같거나 작은 값 중 가장 큰 값의 위치를 찾는다. 같은 값이 여러 개면 마지막 위치를 돌려준다.
+     */
+    private static int floor(int[] sorted, int key) {
+        int lo = 0, hi = sorted.length - 1, found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= key) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,262 @@
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * 다른 Device의 입출력을 별도의 스레드에서 수행한다. 입력은 미리 읽어서(prefetch) 버퍼에 쌓아두고, 출력은 큐에 넣은 뒤
+ * 나중에 내보낸다(write-behind). 따라서 시뮬레이터 스레드는 실제 입출력을 기다리지 않는다.
+ *
+ * TD는 출력 큐가 비어 있고, 읽을 데이터가 준비되어 있거나 EOF에 도달했을 때만 사용 가능을 돌려준다. 처리 중인 데이터가
+ * 있는 동안에는 사용 불가이므로 프로그램의 TD 반복문이 실제 장치를 기다리는 것처럼 동작한다.
+ */
+public class AsyncDevice implements Device {
+    static final int PREFETCH_SIZE = 4096;
+
+    private final Device device;
+    private final String name;
+    // close하면 끝나므로 reset에서 새로 만든다.
+    private Thread worker;
+
+    // prefetch 버퍼. 원형 버퍼로 사용한다.
+    private final byte[] input = new byte[PREFETCH_SIZE];
+    private int inHead;
+    private int inSize;
+    private boolean eof;
+    private boolean started; // 첫 TD 이후부터 prefetch를 시작한다.
+
+    // write-behind 큐. 맨 앞의 데이터는 worker가 출력을 마칠 때까지 큐에 남아있다.
+    private final ArrayDeque<byte[]> writes = new ArrayDeque<>();
+    private boolean dirty; // 마지막 flush 이후 출력한 적이 있는지
+    private boolean flushRequested;
+    private boolean reading;
+    private boolean closed;
+    private IOException error;
+
+    public AsyncDevice(Device device, String name) {
+        this.device = device;
+        this.name = name;
+        startWorker();
+    }
+
+    private void startWorker() {
+        worker = new Thread(this::work, "device-" + name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 실제 입출력을 수행하는 디바이스를 돌려준다.
+     */
+    public Device getDevice() {
+        return device;
+    }
+
+    @Override
+    public synchronized boolean test() {
+        if (!started) {
+            started = true;
+            notifyAll();
+        }
+        return error == null && writes.isEmpty() && (inSize > 0 || eof);
+    }
+
+    @Override
+    public synchronized int read(byte[] buf, int off, int len) throws IOException {
+        started = true;
+        notifyAll();
+
+        // TD로 확인하지 않고 읽은 경우에만 여기서 기다린다.
+        while (inSize == 0 && !eof) {
+            await();
+        }
+
+        if (inSize == 0) {
+            // EOF 이후에 다른 쪽에서 데이터가 추가될 수 있으므로 다음 prefetch를 다시 시도한다.
+            eof = false;
+            notifyAll();
+            return -1;
+        }
+
+        int count = Math.min(len, inSize);
+        for (int i = 0; i < count; i++) {
+            buf[off + i] = input[(inHead + i) % input.length];
+        }
+        inHead = (inHead + count) % input.length;
+        inSize -= count;
+        notifyAll();
+        return count;
+    }
+
+    @Override
+    public synchronized void write(byte[] data, int off, int len) throws IOException {
+        checkError();
+
+        byte[] chunk = new byte[len];
+        System.arraycopy(data, off, chunk, 0, len);
+        writes.add(chunk);
+        dirty = true;
+        notifyAll();
+    }
+
+    /**
+     * 큐에 남아있는 출력을 모두 내보낼 때까지 기다린다.
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        if (!dirty) {
+            checkError();
+            return;
+        }
+
+        flushRequested = true;
+        notifyAll();
+
+        while ((flushRequested || !writes.isEmpty()) && error == null && worker.isAlive()) {
+            await();
+        }
+        checkError();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            synchronized (this) {
+                closed = true;
+                // 입력을 기다리며 멈춰있는 worker를 깨운다.
+                if (reading) worker.interrupt();
+                notifyAll();
+            }
+
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            device.close();
+        }
+    }
+
+    /**
+     * worker를 끝내고 감싼 디바이스와 버퍼를 처음 상태로 되돌린 뒤 새 worker를 시작한다.
+     */
+    @Override
+    public void reset() throws IOException {
+        close();
+        device.reset();
+
+        synchronized (this) {
+            inHead = 0;
+            inSize = 0;
+            eof = false;
+            started = false;
+            writes.clear();
+            dirty = false;
+            flushRequested = false;
+            reading = false;
+            closed = false;
+            error = null;
+            startWorker();
+        }
+    }
+
+    private void work() {
+        while (true) {
+            byte[] chunk = null;
+            boolean doFlush = false;
+            int space = 0;
+
+            synchronized (this) {
+                while (!closed && writes.isEmpty() && !flushRequested && !needsPrefetch()) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // close에서 깨운 경우이므로 상태를 다시 확인한다.
+                    }
+                }
+
+                if (!writes.isEmpty()) chunk = writes.peek();
+                else if (flushRequested) {
+                    doFlush = true;
+                    dirty = false;
+                }
+                else if (closed) return;
+                else {
+                    space = input.length - inSize;
+                    reading = true;
+                }
+            }
+
+            try {
+                if (chunk != null) {
+                    device.write(chunk, 0, chunk.length);
+                    synchronized (this) {
+                        writes.poll();
+                        notifyAll();
+                    }
+                } else if (doFlush) {
+                    device.flush();
+                    synchronized (this) {
+                        flushRequested = false;
+                        notifyAll();
+                    }
+                } else {
+                    prefetch(space);
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    if (chunk != null || doFlush) {
+                        error = e;
+                        writes.clear();
+                        flushRequested = false;
+                    } else {
+                        // 읽을 수 없는 디바이스(출력 전용 파이프 등)는 입력이 끝난 것으로 본다.
+                        reading = false;
+                        eof = true;
+                    }
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    private void prefetch(int space) throws IOException {
+        byte[] buf = new byte[space];
+        int count = device.read(buf, 0, space);
+
+        synchronized (this) {
+            reading = false;
+            if (count < 0) {
+                eof = true;
+            } else {
+                for (int i = 0; i < count; i++) {
+                    input[(inHead + inSize + i) % input.length] = buf[i];
+                }
+                inSize += count;
+            }
+            notifyAll();
+        }
+    }
+
+    private boolean needsPrefetch() {
+        return started && !eof && inSize < input.length;
+    }
+
+    private void checkError() throws IOException {
+        if (error != null) throw new IOException("Device write failed", error);
+    }
+
+    private void await() throws IOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for device", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "async:" + device;
+    }
+}
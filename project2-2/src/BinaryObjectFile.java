@@ -0,0 +1,151 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 텍스트 object code와 같은 H/D/R/T/M/E 정보를 byte 단위로 저장하는 binary object 형식. object code를 16진수 문자
+ * 대신 byte 그대로 저장하므로 SicLoader가 파일을 memory-map해서 T record를 메모리로 바로 복사할 수 있다.
+ *
+ * 형식 (big endian)
+ * 파일 헤더 : "SICB" 4byte, version 2byte
+ * H : 'H', 이름, 시작 주소 4byte, 길이 4byte
+ * D : 'D', 개수 2byte, (이름, 주소 4byte) 반복
+ * R : 'R', 개수 2byte, 이름 반복
+ * T : 'T', 시작 주소 4byte, 길이 4byte, object code
+ * M : 'M', 주소 4byte, half byte 수 1byte, 부호 1byte, 이름
+ * E : 'E', 시작 주소 존재 여부 1byte, 시작 주소 4byte
+ *
+ * 이름은 길이 1byte와 ISO-8859-1 문자열로 저장한다. 변환할 때 주소가 이어지는 T record는 하나로 합친다.
+ */
+public class BinaryObjectFile {
+    static final byte[] MAGIC = {'S', 'I', 'C', 'B'};
+    static final int VERSION = 1;
+
+    /**
+     * 파일이 binary object 형식인지 앞부분의 magic 값으로 확인한다.
+     */
+    public static boolean isBinary(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] head = in.readNBytes(MAGIC.length);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (i >= head.length || head[i] != MAGIC[i]) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 텍스트 object code를 binary object 형식으로 변환한다.
+     *
+     * @param reader 텍스트 object code
+     * @param out    binary object를 기록할 stream
+     */
+    public static void convert(BufferedReader reader, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        data.writeShort(VERSION);
+
+        // 주소가 이어지는 T record를 합치기 위해 아직 기록하지 않은 object code를 모아둔다.
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        int textStart = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) continue;
+            char recordType = line.charAt(0);
+
+            if (recordType == 'T') {
+                int start = SicLoader.parseHex(line, 1, 7);
+                int length = SicLoader.parseHex(line, 7, 9);
+
+                if (text.size() > 0 && start != textStart + text.size()) {
+                    writeText(data, textStart, text);
+                }
+                if (text.size() == 0) textStart = start;
+
+                for (int i = 0, pos = 9; i < length; i++, pos += 2) {
+                    text.write(SicLoader.parseHex(line, pos, pos + 2));
+                }
+                continue;
+            }
+
+            if (text.size() > 0) writeText(data, textStart, text);
+
+            switch (recordType) {
+                case 'H' -> {
+                    int end = line.length();
+                    while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) end--;
+                    if (end < 13) throw new NumberFormatException("Header record too short: " + line);
+
+                    data.writeByte('H');
+                    writeName(data, line.substring(1, end - 12).trim());
+                    data.writeInt(SicLoader.parseHex(line, end - 12, end - 6));
+                    data.writeInt(SicLoader.parseHex(line, end - 6, end));
+                }
+                case 'D' -> {
+                    int count = (line.length() - 1) / 12;
+                    data.writeByte('D');
+                    data.writeShort(count);
+                    for (int i = 0, pos = 1; i < count; i++, pos += 12) {
+                        writeName(data, line.substring(pos, pos + 6).trim());
+                        data.writeInt(SicLoader.parseHex(line, pos + 6, pos + 12));
+                    }
+                }
+                case 'R' -> {
+                    // R record의 이름은 6글자로 맞춰져 있지 않을 수 있으므로 그대로 한 개로 저장한다.
+                    data.writeByte('R');
+                    data.writeShort(1);
+                    writeName(data, line.substring(1).trim());
+                }
+                case 'M' -> {
+                    data.writeByte('M');
+                    data.writeInt(SicLoader.parseHex(line, 1, 7));
+                    data.writeByte(SicLoader.parseHex(line, 7, 9));
+                    data.writeByte(line.charAt(9));
+                    writeName(data, line.substring(10).trim());
+                }
+                case 'E' -> {
+                    data.writeByte('E');
+                    boolean hasStart = line.trim().length() > 1;
+                    data.writeBoolean(hasStart);
+                    data.writeInt(hasStart ? SicLoader.parseHex(line, 1, Math.min(7, line.length())) : 0);
+                }
+            }
+        }
+
+        if (text.size() > 0) writeText(data, textStart, text);
+        data.flush();
+    }
+
+    private static void writeText(DataOutputStream data, int start, ByteArrayOutputStream text) throws IOException {
+        data.writeByte('T');
+        data.writeInt(start);
+        data.writeInt(text.size());
+        text.writeTo(data);
+        text.reset();
+    }
+
+    private static void writeName(DataOutputStream data, String name) throws IOException {
+        byte[] bytes = name.getBytes(StandardCharsets.ISO_8859_1);
+        if (bytes.length > 255) throw new IllegalArgumentException("Name too long: " + name);
+
+        data.writeByte(bytes.length);
+        data.write(bytes);
+    }
+
+    /**
+     * 텍스트 object 파일을 binary object 파일로 변환한다.
+     *
+     * 사용법 : java BinaryObjectFile 입력.obj 출력.sob
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: java BinaryObjectFile input.obj output.sob");
+            System.exit(1);
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(args[0]));
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(args[1]))) {
+            convert(reader, out);
+        }
+    }
+}
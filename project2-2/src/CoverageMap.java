@@ -0,0 +1,153 @@
+import java.io.*;
+import java.util.BitSet;
+import java.util.zip.CRC32;
+
+/**
+ * 실행한 명령어 주소를 기록하는 coverage bitmap. 주소 하나가 1bit이며, 명령어를 수행할 때마다 그 시작 주소의 bit를
+ * 하나 켜기만 하므로 coverage를 측정해도 실행 속도는 거의 그대로이다.
+ *
+ * 여러 번 실행한 결과는 merge로 합칠 수 있고, 파일로 저장해두었다가 다음 실행의 결과와 합칠 수도 있다. report는
+ * Predecoder가 해석한 명령어 중 T record가 기록한 주소의 명령어를 기준으로 control section별로 실행된 명령어 수를
+ * 보여준다.
+ */
+public class CoverageMap {
+    // 프로그램 정보를 함께 저장하면서 "SCOV"에서 바꿨다.
+    static final int MAGIC = 0x53435632; // "SCV2"
+
+    final long[] bits;
+    // 기록한 프로그램. identify로 만든다.
+    final String program;
+
+    /**
+     * @param size    기록할 주소의 수
+     * @param program 기록할 프로그램. 파일로 저장한 coverage와 합칠 때 같은 프로그램인지 확인하는 데 쓴다
+     */
+    public CoverageMap(int size, String program) {
+        bits = new long[(size + Long.SIZE - 1) / Long.SIZE];
+        this.program = program;
+    }
+
+    /**
+     * 적재된 프로그램들의 이름, 적재 주소, 길이와 T record가 기록한 내용의 CRC32로 프로그램을 구별하는 문자열을
+     * 만든다. 실행하면서 메모리가 바뀌므로 실행하기 전에 호출한다.
+     */
+    public static String identify(ResourceManager rMgr) {
+        StringBuilder identity = new StringBuilder();
+        for (LoadedProgram program : rMgr.programs) {
+            identity.append(String.format("%s@%06X+%04X,", program.name, program.loadAddr, program.length));
+        }
+
+        CRC32 crc = new CRC32();
+        BitSet text = rMgr.textAddresses;
+        for (int from = text.nextSetBit(0); from >= 0; from = text.nextSetBit(from)) {
+            int to = text.nextClearBit(from);
+            crc.update(rMgr.memory, from, to - from);
+            from = to;
+        }
+        identity.append(String.format("crc=%08X", crc.getValue()));
+        return identity.toString();
+    }
+
+    /**
+     * address의 명령어를 실행했음을 기록한다.
+     */
+    void mark(int address) {
+        bits[address >>> 6] |= 1L << address;
+    }
+
+    public boolean isCovered(int address) {
+        return (bits[address >>> 6] & (1L << address)) != 0;
+    }
+
+    /**
+     * 다른 실행의 결과를 합친다.
+     */
+    public void merge(CoverageMap other) {
+        if (other.bits.length != bits.length) {
+            throw new IllegalArgumentException("Coverage size mismatch: " + other.bits.length + " != " + bits.length);
+        }
+        for (int i = 0; i < bits.length; i++) bits[i] |= other.bits[i];
+    }
+
+    /**
+     * @return 실행된 주소의 수
+     */
+    public int coveredCount() {
+        int count = 0;
+        for (long word : bits) count += Long.bitCount(word);
+        return count;
+    }
+
+    public void write(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeUTF(program);
+            out.writeInt(bits.length);
+            for (long word : bits) out.writeLong(word);
+        }
+    }
+
+    /**
+     * write로 저장한 파일을 읽는다. 파일에 적힌 프로그램이 program과 같은지, word 수가 size와 맞는지를 할당하기
+     * 전에 확인한다.
+     *
+     * @param size    기록할 주소의 수. 합칠 CoverageMap을 만들 때 넘긴 값과 같아야 한다
+     * @param program 합칠 CoverageMap의 프로그램
+     */
+    public static CoverageMap read(File file, int size, String program) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a coverage file: " + file);
+
+            String recorded = in.readUTF();
+            if (!recorded.equals(program)) {
+                throw new IOException("Coverage file " + file + " was recorded for " + recorded + ", not " + program);
+            }
+
+            CoverageMap coverage = new CoverageMap(size, program);
+            int words = in.readInt();
+            if (words != coverage.bits.length) {
+                throw new IOException("Coverage size mismatch in " + file + ": " + words + " != " + coverage.bits.length);
+            }
+            for (int i = 0; i < coverage.bits.length; i++) coverage.bits[i] = in.readLong();
+            return coverage;
+        }
+    }
+
+    /**
+     * control section별로 Predecoder가 해석한 명령어 중 실행된 명령어의 수와 비율을 보여준다. RESB/RESW 공간은
+     * Predecoder가 0을 명령어로 해석한 것이므로, T record가 기록한 주소의 명령어만 센다.
+     *
+     * @param predecoder 적재된 프로그램을 해석한 Predecoder
+     * @param index      control section 범위를 가진 index
+     * @param text       T record가 기록한 주소. ResourceManager.textAddresses
+     */
+    public String report(Predecoder predecoder, AddressIndex index, BitSet text) {
+        int sections = index.sectionStarts.length;
+        int[] decoded = new int[sections];
+        int[] covered = new int[sections];
+
+        for (int row = 0; row < predecoder.rowCount(); row++) {
+            int address = predecoder.rowAt(row).address;
+            int section = index.sectionIndexAt(address);
+            if (section < 0 || !text.get(address)) continue;
+
+            decoded[section]++;
+            if (isCovered(address)) covered[section]++;
+        }
+
+        StringBuilder report = new StringBuilder();
+        int totalDecoded = 0, totalCovered = 0;
+        for (int i = 0; i < sections; i++) {
+            appendLine(report, index.sectionNames[i], covered[i], decoded[i]);
+            totalDecoded += decoded[i];
+            totalCovered += covered[i];
+        }
+        appendLine(report, "TOTAL", totalCovered, totalDecoded);
+        return report.toString();
+    }
+
+    private static void appendLine(StringBuilder report, String name, int covered, int decoded) {
+        double percent = decoded == 0 ? 0 : covered * 100.0 / decoded;
+        report.append(String.format("%-8s %5d/%-5d %5.1f%%%n", name, covered, decoded, percent));
+    }
+}
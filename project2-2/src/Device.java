@@ -0,0 +1,35 @@
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * 시뮬레이터가 TD, RD, WD 명령어로 접근하는 입출력 장치를 나타낸다. ResourceManager는 디바이스 번호마다 하나의 Device를
+ * 연결해서 사용하며, 파일, 메모리 버퍼, 파이프 등 실제 구현은 자유롭게 교체할 수 있다.
+ */
+public interface Device extends Closeable, Flushable {
+    /**
+     * 디바이스가 입출력을 받을 수 있는 상태인지 확인한다. TD명령어를 사용했을 때 호출된다.
+     *
+     * @return 사용 가능하면 true
+     */
+    boolean test();
+
+    /**
+     * 디바이스로부터 최대 len개의 byte를 읽어 buf에 채운다.
+     *
+     * @return 실제로 읽은 byte 수. 더 이상 읽을 데이터가 없으면 -1
+     */
+    int read(byte[] buf, int off, int len) throws IOException;
+
+    /**
+     * 디바이스로 len개의 byte를 출력한다.
+     */
+    void write(byte[] data, int off, int len) throws IOException;
+
+    /**
+     * 디바이스를 처음 연결했을 때의 상태로 되돌린다. 설정된 디바이스는 실행이 끝나도 ResourceManager.deviceConfig에
+     * 남아 다음 실행에서 다시 쓰이므로, 새 실행을 시작할 때 호출된다. 닫힌 디바이스도 다시 사용할 수 있게 된다.
+     */
+    default void reset() throws IOException {
+    }
+}
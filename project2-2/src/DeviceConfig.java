@@ -0,0 +1,75 @@
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Properties;
+
+/**
+ * 디바이스 번호와 실제 Device 구현을 연결하는 설정. 설정은 "디바이스 번호=종류:인자" 형태의 properties로 표현한다.
+ *
+ * file:경로          - 지정한 파일을 디바이스로 사용한다.
+ * memory[:문자열]    - 메모리 버퍼를 사용한다. 문자열이 있으면 입력 데이터로 사용한다.
+ * pipe:이름:in|out   - 같은 이름의 파이프에 입력 또는 출력 쪽으로 연결한다.
+ * async:설정        - 뒤의 설정으로 만든 디바이스를 AsyncDevice로 감싼다. (예: async:file:F1)
+ *
+ * 파이프는 DeviceConfig 인스턴스 안에서 이름으로 공유되므로, 같은 DeviceConfig를 여러 ResourceManager에 적용하면
+ * 시뮬레이터끼리 디바이스를 연결할 수 있다. 설정되지 않은 디바이스 번호는 기존처럼 같은 이름의 파일을 사용한다.
+ */
+public class DeviceConfig {
+    private final HashMap<String, PipeDevice.Pipe> pipes = new HashMap<>();
+
+    /**
+     * properties 파일을 읽어서 설정을 만든다.
+     */
+    public static Properties load(File file) throws IOException {
+        Properties props = new Properties();
+        try (Reader reader = new FileReader(file, StandardCharsets.UTF_8)) {
+            props.load(reader);
+        }
+        return props;
+    }
+
+    /**
+     * 설정에 있는 모든 디바이스를 생성해서 ResourceManager에 연결한다.
+     */
+    public void apply(ResourceManager rMgr, Properties props) {
+        for (String devName : props.stringPropertyNames()) {
+            rMgr.attachDevice(devName, create(props.getProperty(devName)));
+        }
+    }
+
+    /**
+     * 설정 문자열 하나를 해석해서 Device를 생성한다.
+     *
+     * @param spec "종류:인자" 형태의 설정 문자열
+     * @return 생성된 디바이스
+     */
+    public Device create(String spec) {
+        int colon = spec.indexOf(':');
+        String type = colon < 0 ? spec : spec.substring(0, colon);
+        String arg = colon < 0 ? "" : spec.substring(colon + 1);
+
+        switch (type) {
+            case "file":
+                return new FileDevice(new File(arg));
+            case "memory":
+                return new MemoryDevice(arg.getBytes(StandardCharsets.ISO_8859_1));
+            case "async":
+                return new AsyncDevice(create(arg), arg);
+            case "pipe": {
+                int sep = arg.lastIndexOf(':');
+                if (sep < 0) throw new IllegalArgumentException("Pipe direction missing: " + spec);
+
+                PipeDevice.Pipe pipe = pipes.computeIfAbsent(arg.substring(0, sep), k -> new PipeDevice.Pipe());
+                String direction = arg.substring(sep + 1);
+                if (direction.equals("in")) return pipe.reader();
+                if (direction.equals("out")) return pipe.writer();
+                throw new IllegalArgumentException("Unknown pipe direction: " + spec);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown device type: " + spec);
+        }
+    }
+}
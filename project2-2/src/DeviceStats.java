@@ -0,0 +1,97 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 디바이스 하나의 입출력 통계. TD 횟수, 사용 불가였던 TD 횟수, RD/WD로 주고받은 byte 수, 프로그램이 TD 반복문에서
+ * 기다린 시간을 기록한다. 시뮬레이터 스레드가 기록하고 GUI 등 다른 스레드가 읽으므로 atomic 카운터를 사용한다.
+ */
+public class DeviceStats {
+    final String devName;
+
+    final LongAdder testCount = new LongAdder();
+    final LongAdder busyCount = new LongAdder();
+    final LongAdder readBytes = new LongAdder();
+    final LongAdder writeBytes = new LongAdder();
+    final LongAdder busyWaitNanos = new LongAdder();
+
+    private final AtomicLong firstAccess = new AtomicLong();
+    private final AtomicLong lastAccess = new AtomicLong();
+
+    // 사용 불가인 TD가 처음 나온 시각. 사용 가능해지면 그 사이의 시간을 busyWaitNanos에 더한다.
+    private long busySince;
+
+    public DeviceStats(String devName) {
+        this.devName = devName;
+    }
+
+    /**
+     * TD 결과를 기록한다.
+     *
+     * @param ready 디바이스가 사용 가능했는지
+     */
+    void recordTest(boolean ready) {
+        long now = touch();
+        testCount.increment();
+
+        if (!ready) {
+            busyCount.increment();
+            if (busySince == 0) busySince = now;
+        } else if (busySince != 0) {
+            busyWaitNanos.add(now - busySince);
+            busySince = 0;
+        }
+    }
+
+    void recordRead(int bytes) {
+        touch();
+        readBytes.add(bytes);
+    }
+
+    void recordWrite(int bytes) {
+        touch();
+        writeBytes.add(bytes);
+    }
+
+    private long touch() {
+        long now = System.nanoTime();
+        firstAccess.compareAndSet(0, now);
+        lastAccess.set(now);
+        return now;
+    }
+
+    public long getTestCount() {
+        return testCount.sum();
+    }
+
+    public long getBusyCount() {
+        return busyCount.sum();
+    }
+
+    public long getReadBytes() {
+        return readBytes.sum();
+    }
+
+    public long getWriteBytes() {
+        return writeBytes.sum();
+    }
+
+    public long getBusyWaitNanos() {
+        return busyWaitNanos.sum();
+    }
+
+    /**
+     * 처음 접근한 시각부터 마지막으로 접근한 시각까지를 기준으로 한 초당 입출력 byte 수.
+     */
+    public double getBytesPerSecond() {
+        long elapsed = lastAccess.get() - firstAccess.get();
+        if (elapsed <= 0) return 0;
+        return (getReadBytes() + getWriteBytes()) * 1e9 / elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-4s TD %d (busy %d), RD %d B, WD %d B, %.0f B/s, TD wait %.3f ms",
+                devName, getTestCount(), getBusyCount(), getReadBytes(), getWriteBytes(),
+                getBytesPerSecond(), getBusyWaitNanos() / 1e6);
+    }
+}
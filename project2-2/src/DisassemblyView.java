@@ -0,0 +1,124 @@
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Predecoder가 해석한 명령어를 한 줄씩 보여주는 역어셈블 view. 화면에 보이는 줄만 그리며, PC가 가리키는 명령어를
+ * 강조하고 그 줄이 보이도록 스크롤한다.
+ */
+public class DisassemblyView extends JComponent implements Scrollable {
+    static final Color PC_COLOR = Color.yellow;
+    static final int COLUMNS = 48;
+
+    private final Predecoder predecoder;
+
+    // 강조 중인 줄. 없으면 -1
+    private int pcRow = -1;
+    private int rowCount;
+
+    private int rowHeight;
+    private int charWidth;
+    private int ascent;
+
+    public DisassemblyView(Predecoder predecoder) {
+        this.predecoder = predecoder;
+
+        setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        setOpaque(true);
+        setBackground(Color.white);
+        setForeground(Color.black);
+    }
+
+    @Override
+    public void setFont(Font font) {
+        super.setFont(font);
+        FontMetrics metrics = getFontMetrics(font);
+        rowHeight = metrics.getHeight();
+        charWidth = metrics.charWidth('0');
+        ascent = metrics.getAscent();
+        revalidate();
+    }
+
+    /**
+     * PC 위치를 갱신한다. 해석 결과가 바뀌었으면 전체를, 아니면 강조가 옮겨간 두 줄만 다시 그린다.
+     *
+     * @param pc      현재 PC
+     * @param changed Predecoder의 해석 결과가 바뀌었으면 true
+     */
+    public void update(int pc, boolean changed) {
+        int row = predecoder.rowOf(pc);
+
+        if (changed) {
+            if (rowCount != predecoder.rowCount()) {
+                rowCount = predecoder.rowCount();
+                revalidate();
+            }
+            repaint();
+        } else if (row != pcRow) {
+            repaintRow(pcRow);
+            repaintRow(row);
+        }
+
+        if (row != pcRow && row >= 0) {
+            scrollRectToVisible(new Rectangle(0, row * rowHeight, 1, rowHeight));
+        }
+        pcRow = row;
+    }
+
+    private void repaintRow(int row) {
+        if (row >= 0) repaint(0, row * rowHeight, getWidth(), rowHeight);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        g.setFont(getFont());
+
+        int firstRow = Math.max(0, clip.y / rowHeight);
+        int lastRow = Math.min(predecoder.rowCount() - 1, (clip.y + clip.height) / rowHeight);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            int y = row * rowHeight;
+
+            if (row == pcRow) {
+                g.setColor(PC_COLOR);
+                g.fillRect(0, y, getWidth(), rowHeight);
+            }
+
+            g.setColor(getForeground());
+            g.drawString(predecoder.rowAt(row).text, 0, y + ascent);
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(COLUMNS * charWidth, Math.max(1, rowCount) * rowHeight);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return new Dimension(COLUMNS * charWidth, 12 * rowHeight);
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? rowHeight : charWidth;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        if (orientation == SwingConstants.HORIZONTAL) return visibleRect.width;
+        return Math.max(rowHeight, (visibleRect.height / rowHeight - 1) * rowHeight);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
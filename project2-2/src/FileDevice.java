@@ -0,0 +1,82 @@
+import java.io.*;
+
+/**
+ * 파일을 디바이스로 사용한다. 읽기와 쓰기는 같은 파일을 대상으로 하며, 쓰기는 파일 끝에 덧붙인다. stream은 처음 test될 때
+ * 열리고 close될 때까지 유지된다.
+ */
+public class FileDevice implements Device {
+    static final int OUTPUT_BUFFER_SIZE = 8192;
+
+    private final File file;
+    private InputStream reader;
+    private OutputStream writer;
+
+    public FileDevice(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public boolean test() {
+        try {
+            open();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws IOException {
+        open();
+        // 같은 파일에 써둔 데이터가 버퍼에 남아있으면 읽기 전에 내보낸다.
+        writer.flush();
+
+        int readCount = reader.readNBytes(buf, off, len);
+        return readCount == 0 && len > 0 ? -1 : readCount;
+    }
+
+    @Override
+    public void write(byte[] data, int off, int len) throws IOException {
+        open();
+        writer.write(data, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (writer != null) writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (writer != null) writer.close();
+        } finally {
+            if (reader != null) reader.close();
+            reader = null;
+            writer = null;
+        }
+    }
+
+    /**
+     * stream을 닫는다. 다음에 사용할 때 파일의 처음부터 다시 연다.
+     */
+    @Override
+    public void reset() throws IOException {
+        close();
+    }
+
+    private void open() throws IOException {
+        if (reader != null) return;
+
+        if (!file.exists()) {
+            file.createNewFile();
+        }
+        reader = new BufferedInputStream(new FileInputStream(file));
+        writer = new BufferedOutputStream(new FileOutputStream(file, true), OUTPUT_BUFFER_SIZE);
+    }
+
+    @Override
+    public String toString() {
+        return "file:" + file.getPath();
+    }
+}
@@ -0,0 +1,301 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * GDB remote serial protocol의 일부를 구현한 debug server. GUI 없이 외부 debugger가 TCP로 접속해서 레지스터와 메모리를
+ * 읽고 쓰고, breakpoint를 걸고, step과 continue를 할 수 있다. localhost에서만 접속을 받는다.
+ *
+ * 지원하는 packet은 다음과 같다.
+ * ?             멈춘 이유
+ * g / G         레지스터 전체 읽기 / 쓰기
+ * p n / P n=v   레지스터 하나 읽기 / 쓰기
+ * m a,l / M a,l:data  메모리 읽기 / 쓰기
+ * Z0,a,k / z0,a,k     software breakpoint 설정 / 해제
+ * s / c         step / continue. continue 중에 0x03을 받으면 멈춘다.
+ * k / D         종료 / 연결 끊기
+ *
+ * 레지스터는 ResourceManager.register의 번호 순서(A, X, L, B, S, T, F, -, PC, SW)로 10개이며, 각각 32bit big-endian으로
+ * 주고받는다. 메모리 packet은 ResourceManager.memory에서 바로 읽고 쓴다. continue는 breakpoint를 만날 때까지
+ * SicSimulator.oneStep을 그대로 반복하며, 중단 요청은 명령어 CHECK_INTERVAL개마다 확인한다. 접속해 있는 동안은
+ * 명령어 로그를 남기지 않는다.
+ */
+public class GdbServer {
+    static final int REGISTER_COUNT = 10;
+    static final int CHECK_INTERVAL = 4096;
+    static final int PACKET_SIZE = 0x4000;
+
+    // 멈춘 이유로 보내는 signal 번호
+    static final int SIGINT = 2;
+    static final int SIGILL = 4;
+    static final int SIGTRAP = 5;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ResourceManager rMgr;
+    private final SicSimulator sicSimulator;
+    final boolean[] breakpoints = new boolean[65536];
+
+    private InputStream in;
+    private OutputStream out;
+    private int lastSignal = SIGTRAP;
+
+    public GdbServer(ResourceManager rMgr, SicSimulator sicSimulator) {
+        this.rMgr = rMgr;
+        this.sicSimulator = sicSimulator;
+    }
+
+    /**
+     * localhost의 port에서 debugger 하나의 접속을 기다리고, 연결이 끊기거나 k packet을 받을 때까지 요청을 처리한다.
+     */
+    public void serve(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+             Socket socket = server.accept()) {
+            socket.setTcpNoDelay(true);
+            serve(socket.getInputStream(), socket.getOutputStream());
+        }
+    }
+
+    /**
+     * 주어진 stream으로 요청을 처리한다.
+     */
+    public void serve(InputStream input, OutputStream output) throws IOException {
+        in = new BufferedInputStream(input);
+        out = new BufferedOutputStream(output);
+        sicSimulator.setLogging(false);
+
+        String packet;
+        while ((packet = readPacket()) != null) {
+            if (packet.startsWith("k")) {
+                sicSimulator.stop();
+                return;
+            }
+            if (packet.startsWith("D")) {
+                sendPacket("OK");
+                return;
+            }
+            sendPacket(handle(packet));
+        }
+    }
+
+    private String handle(String packet) {
+        try {
+            switch (packet.charAt(0)) {
+                case '?':
+                    return stopReply(lastSignal);
+                case 'g':
+                    return readRegisters();
+                case 'G':
+                    return writeRegisters(packet.substring(1));
+                case 'p':
+                    return hexWord(rMgr.getRegister(Integer.parseInt(packet.substring(1), 16)));
+                case 'P': {
+                    int eq = packet.indexOf('=');
+                    rMgr.setRegister(Integer.parseInt(packet.substring(1, eq), 16), parseWord(packet, eq + 1));
+                    return "OK";
+                }
+                case 'm':
+                    return readMemory(packet);
+                case 'M':
+                    return writeMemory(packet);
+                case 'Z':
+                case 'z':
+                    return setBreakpoint(packet);
+                case 's':
+                    return step();
+                case 'c':
+                    return resume();
+                case 'H':
+                    return "OK";
+                case 'q':
+                    if (packet.startsWith("qSupported")) return "PacketSize=" + Integer.toHexString(PACKET_SIZE);
+                    if (packet.equals("qAttached")) return "1";
+                    return "";
+                default:
+                    return "";
+            }
+        } catch (RuntimeException e) {
+            return "E01";
+        }
+    }
+
+    private String readRegisters() {
+        StringBuilder reply = new StringBuilder(REGISTER_COUNT * 8);
+        for (int i = 0; i < REGISTER_COUNT; i++) reply.append(hexWord(rMgr.getRegister(i)));
+        return reply.toString();
+    }
+
+    private String writeRegisters(String data) {
+        for (int i = 0; i < REGISTER_COUNT && (i + 1) * 8 <= data.length(); i++) {
+            rMgr.setRegister(i, parseWord(data, i * 8));
+        }
+        return "OK";
+    }
+
+    /**
+     * m addr,length. memory 배열에서 바로 16진수 문자열을 만든다.
+     */
+    private String readMemory(String packet) {
+        int comma = packet.indexOf(',');
+        int addr = Integer.parseInt(packet.substring(1, comma), 16);
+        int length = Math.min(Integer.parseInt(packet.substring(comma + 1), 16), PACKET_SIZE / 2);
+
+        byte[] memory = rMgr.memory;
+        if (addr < 0 || addr >= memory.length) return "E01";
+        length = Math.min(length, memory.length - addr);
+
+        char[] reply = new char[length * 2];
+        for (int i = 0; i < length; i++) {
+            int b = memory[addr + i] & 0xFF;
+            reply[i * 2] = HEX[b >> 4];
+            reply[i * 2 + 1] = HEX[b & 0xF];
+        }
+        return new String(reply);
+    }
+
+    /**
+     * M addr,length:data
+     */
+    private String writeMemory(String packet) {
+        int comma = packet.indexOf(',');
+        int colon = packet.indexOf(':');
+        int addr = Integer.parseInt(packet.substring(1, comma), 16);
+        int length = Integer.parseInt(packet.substring(comma + 1, colon), 16);
+
+        if (addr < 0 || addr + length > rMgr.memory.length || colon + 1 + length * 2 > packet.length()) return "E01";
+
+        byte[] data = new byte[length];
+        for (int i = 0, pos = colon + 1; i < length; i++, pos += 2) {
+            int hi = SicLoader.nibble(packet.charAt(pos));
+            int lo = SicLoader.nibble(packet.charAt(pos + 1));
+            if ((hi | lo) < 0) return "E01";
+            data[i] = (byte) ((hi << 4) | lo);
+        }
+        rMgr.setMemory(addr, data, length);
+        return "OK";
+    }
+
+    /**
+     * Z0,addr,kind / z0,addr,kind. software breakpoint만 지원한다.
+     */
+    private String setBreakpoint(String packet) {
+        if (packet.charAt(1) != '0') return "";
+
+        int first = packet.indexOf(',');
+        int second = packet.indexOf(',', first + 1);
+        int addr = Integer.parseInt(packet.substring(first + 1, second < 0 ? packet.length() : second), 16);
+        if (addr < 0 || addr >= breakpoints.length) return "E01";
+
+        breakpoints[addr] = packet.charAt(0) == 'Z';
+        return "OK";
+    }
+
+    private String step() {
+        if (!sicSimulator.running) return "W00";
+        try {
+            sicSimulator.oneStep();
+        } catch (RuntimeException e) {
+            return stopReply(SIGILL);
+        }
+        return sicSimulator.running ? stopReply(SIGTRAP) : "W00";
+    }
+
+    /**
+     * breakpoint를 만나거나, 프로그램이 끝나거나, debugger가 0x03을 보낼 때까지 실행한다. 현재 PC의 breakpoint는
+     * 건너뛰고 시작한다.
+     */
+    private String resume() {
+        if (!sicSimulator.running) return "W00";
+
+        try {
+            int countdown = CHECK_INTERVAL;
+            do {
+                sicSimulator.oneStep();
+                if (!sicSimulator.running) return "W00";
+
+                if (--countdown == 0) {
+                    countdown = CHECK_INTERVAL;
+                    if (interrupted()) return stopReply(SIGINT);
+                }
+            } while (!breakpoints[rMgr.getRegister(8) & 0xFFFF]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            return stopReply(SIGILL);
+        }
+        return stopReply(SIGTRAP);
+    }
+
+    /**
+     * continue 중에 debugger가 보낸 중단 요청(0x03)이 있는지 확인한다.
+     */
+    private boolean interrupted() throws IOException {
+        while (in.available() > 0) {
+            if (in.read() == 0x03) return true;
+        }
+        return false;
+    }
+
+    private String stopReply(int signal) {
+        lastSignal = signal;
+        return "S" + HEX[signal >> 4] + HEX[signal & 0xF];
+    }
+
+    private static String hexWord(int value) {
+        char[] word = new char[8];
+        for (int i = 0; i < 8; i++) word[i] = HEX[(value >>> (28 - i * 4)) & 0xF];
+        return new String(word);
+    }
+
+    private static int parseWord(String s, int from) {
+        return (int) Long.parseLong(s.substring(from, Math.min(from + 8, s.length())), 16);
+    }
+
+    /**
+     * $data#checksum 형태의 packet 하나를 읽고 '+'로 응답한다. packet 밖의 ack 문자와 0x03은 무시한다.
+     *
+     * @return packet의 내용. 연결이 끊기면 null
+     */
+    private String readPacket() throws IOException {
+        while (true) {
+            int c;
+            do {
+                c = in.read();
+                if (c < 0) return null;
+            } while (c != '$');
+
+            StringBuilder data = new StringBuilder();
+            int sum = 0;
+            while ((c = in.read()) != '#') {
+                if (c < 0) return null;
+                data.append((char) c);
+                sum += c;
+            }
+
+            int hi = SicLoader.nibble((char) in.read());
+            int lo = SicLoader.nibble((char) in.read());
+            if (((hi << 4) | lo) == (sum & 0xFF)) {
+                out.write('+');
+                out.flush();
+                return data.toString();
+            }
+
+            out.write('-');
+            out.flush();
+        }
+    }
+
+    private void sendPacket(String data) throws IOException {
+        int sum = 0;
+        for (int i = 0; i < data.length(); i++) sum += data.charAt(i);
+
+        out.write('$');
+        out.write(data.getBytes(StandardCharsets.ISO_8859_1));
+        out.write('#');
+        out.write(HEX[(sum >> 4) & 0xF]);
+        out.write(HEX[sum & 0xF]);
+        out.flush();
+    }
+}
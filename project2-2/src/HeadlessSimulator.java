@@ -0,0 +1,165 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Properties;
+
+/**
+ * GUI 없이 object program을 끝까지 실행한다. 배치 작업이나 테스트에서 사용한다.
+ *
+ * 사용법 : java HeadlessSimulator [-a] [-s] [-m heatmap파일] [-p profile파일] [-i 간격] [-v coverage파일] [-j] [-g port] [-t quantum] [-l 적재주소] [-k 캐시디렉토리] [-c 설정파일] [-d 디바이스=설정 ...] object파일 ...
+ *
+ * 디바이스 설정 형식은 DeviceConfig를 따른다. -a를 주면 설정되지 않은 파일 디바이스도 비동기로 입출력한다.
+ * -s를 주면 디바이스별 입출력 통계도 함께 출력한다. -m을 주면 메모리 접근 heatmap을 기록해서 실행이 끝난 뒤 파일로
+ * 저장한다(.csv이면 CSV, 아니면 PNG). -p를 주면 명령어 -i개(기본 100)마다 guest의 call stack을 sample해서
+ * flame graph용 collapsed stack 형식으로 저장한다. -v를 주면 실행한 명령어 주소를 기록해서 파일에 이미 있는
+ * 같은 프로그램의 coverage와 합쳐 저장하고, control section별 coverage를 출력한다. -j를 주면 시뮬레이터를 JMX MBean으로 등록해서
+ * 실행 상태를 보거나 pause, resume, stop할 수 있다. -g를 주면 프로그램을 바로 실행하지 않고 localhost의 port에서
+ * GDB remote protocol 접속을 기다려서 debugger의 요청대로 실행한다. -t를 주면 파일들을 link하지 않고 각각 다른
+ * 주소에 적재해서, 명령어 quantum개마다 또는 디바이스를 기다릴 때마다 번갈아 실행한다. -k를 주면 link가 끝난 이미지를 디렉토리에 저장해두고 같은
+ * object code를 다시 실행할 때 재사용한다. -l은 프로그램을 적재할 시작 주소(16진수)를 지정한다. 실행이 끝나면 레지스터 값과 메모리 디바이스의 출력 내용을 표준 출력으로
+ * 보여준다.
+ */
+public class HeadlessSimulator {
+    final ResourceManager resourceManager = new ResourceManager();
+    final SicLoader sicLoader = new SicLoader(resourceManager);
+    final SicSimulator sicSimulator = new SicSimulator(resourceManager);
+
+    final DeviceConfig deviceConfig = new DeviceConfig();
+    final Properties devices = new Properties();
+    boolean printStats;
+    File heatmapFile;
+    File profileFile;
+    int profileInterval = StackProfiler.DEFAULT_INTERVAL;
+    File coverageFile;
+    boolean registerMBean;
+    int gdbPort;
+    int quantum;
+    Predecoder predecoder;
+
+    /**
+     * object program을 적재하고 남은 모든 명령어를 수행한다. 여러 파일을 넘기면 하나의 프로그램으로 link한다.
+     */
+    public void run(File... programs) throws IOException {
+        deviceConfig.apply(resourceManager, devices);
+        // 명령어 로그는 화면에만 쓰이므로, 오래 실행되는 headless 실행에서 끝없이 쌓이지 않도록 끈다.
+        sicSimulator.setLogging(false);
+        if (registerMBean) sicSimulator.registerMBean();
+        if (profileFile != null) sicSimulator.setProfiler(new StackProfiler(resourceManager, profileInterval));
+
+        if (quantum > 0) {
+            ProgramScheduler scheduler = new ProgramScheduler(resourceManager, quantum);
+            for (File program : programs) scheduler.add(sicLoader.loadNext(program));
+            sicSimulator.setScheduler(scheduler);
+        } else {
+            sicLoader.load(programs);
+        }
+        if (coverageFile != null) {
+            // 실행 중에 바뀌기 전의 메모리로 명령어를 해석해둔다.
+            predecoder = new Predecoder(resourceManager);
+            predecoder.decodeAll();
+            sicSimulator.setCoverage(new CoverageMap(resourceManager.memory.length, CoverageMap.identify(resourceManager)));
+        }
+
+        sicSimulator.load(programs[0]);
+        if (gdbPort > 0) new GdbServer(resourceManager, sicSimulator).serve(gdbPort);
+        else sicSimulator.allStep();
+        resourceManager.closeDevice();
+    }
+
+    /**
+     * 기록한 heatmap을 -m으로 지정한 파일에 저장한다.
+     */
+    public void writeHeatmap() throws IOException {
+        if (heatmapFile != null) resourceManager.heatmap.export(heatmapFile);
+    }
+
+    /**
+     * 이번 실행의 coverage를 -v로 지정한 파일의 coverage와 합쳐 저장하고, control section별 coverage를 출력한다.
+     */
+    public void writeCoverage() throws IOException {
+        if (coverageFile == null) return;
+
+        CoverageMap coverage = sicSimulator.coverage;
+        if (coverageFile.exists()) coverage.merge(CoverageMap.read(coverageFile, resourceManager.memory.length, coverage.program));
+        coverage.write(coverageFile);
+
+        System.out.print(coverage.report(predecoder, resourceManager.addressIndex, resourceManager.textAddresses));
+    }
+
+    /**
+     * 측정한 call stack sample을 -p로 지정한 파일에 저장한다.
+     */
+    public void writeProfile() throws IOException {
+        if (profileFile != null) sicSimulator.profiler.writeCollapsed(profileFile);
+    }
+
+    /**
+     * 실행 결과를 출력한다.
+     */
+    public void printResult() {
+        String[] names = {"A", "X", "L", "B", "S", "T", "F", "", "PC", "SW"};
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].isEmpty()) continue;
+            System.out.printf("%-2s %06X%n", names[i], resourceManager.getRegister(i) & 0xFFFFFF);
+        }
+
+        for (String devName : resourceManager.deviceConfig.keySet()) {
+            Device device = resourceManager.deviceConfig.get(devName);
+            if (device instanceof AsyncDevice) device = ((AsyncDevice) device).getDevice();
+            if (device instanceof MemoryDevice) {
+                byte[] output = ((MemoryDevice) device).getOutput();
+                System.out.println(devName + ": " + new String(output, StandardCharsets.ISO_8859_1));
+            }
+        }
+
+        if (sicSimulator.scheduler != null) {
+            System.out.print(sicSimulator.scheduler.getReport());
+        }
+
+        if (printStats) {
+            System.out.print(resourceManager.getDeviceReport());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        HeadlessSimulator simulator = new HeadlessSimulator();
+        ArrayList<File> programs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-a" -> simulator.resourceManager.setAsyncDevices(true);
+                case "-s" -> simulator.printStats = true;
+                case "-m" -> {
+                    simulator.heatmapFile = new File(args[++i]);
+                    simulator.resourceManager.setHeatmapEnabled(true);
+                }
+                case "-p" -> simulator.profileFile = new File(args[++i]);
+                case "-i" -> simulator.profileInterval = Integer.parseInt(args[++i]);
+                case "-v" -> simulator.coverageFile = new File(args[++i]);
+                case "-j" -> simulator.registerMBean = true;
+                case "-g" -> simulator.gdbPort = Integer.parseInt(args[++i]);
+                case "-t" -> simulator.quantum = Integer.parseInt(args[++i]);
+                case "-l" -> simulator.resourceManager.setLoadAddress(Integer.parseInt(args[++i], 16));
+                case "-k" -> simulator.sicLoader.setCache(new LoadCache(LoadCache.DEFAULT_CAPACITY, new File(args[++i])));
+                case "-c" -> simulator.devices.putAll(DeviceConfig.load(new File(args[++i])));
+                case "-d" -> {
+                    String[] kv = args[++i].split("=", 2);
+                    simulator.devices.setProperty(kv[0], kv[1]);
+                }
+                default -> programs.add(new File(args[i]));
+            }
+        }
+
+        if (programs.isEmpty()) {
+            System.err.println("Usage: java HeadlessSimulator [-a] [-s] [-m heatmapfile] [-p profilefile] [-i interval] [-v coveragefile] [-j] [-g port] [-t quantum] [-l loadaddr] [-k cachedir] [-c config] [-d DEV=SPEC ...] objectfile ...");
+            System.exit(1);
+        }
+
+        simulator.run(programs.toArray(new File[0]));
+        simulator.printResult();
+        simulator.writeHeatmap();
+        simulator.writeProfile();
+        simulator.writeCoverage();
+    }
+}
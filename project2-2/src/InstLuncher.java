@@ -16,36 +16,44 @@ public class InstLuncher {
     String curDev;
     boolean useDev;
 
+    // getTargetAddress가 매 명령어마다 재사용한다.
+    private final Operand operand = new Operand();
+
+    // opcode(첫 byte의 상위 6bit)와 mnemonic의 대응. Predecoder도 같은 표로 명령어를 해석한다.
+    static final Map<Integer, String> OPCODES = new HashMap<>();
+    static {
+        OPCODES.put(0x00, "LDA");
+        OPCODES.put(0x0C, "STA");
+        OPCODES.put(0x28, "COMP");
+        OPCODES.put(0x30, "JEQ");
+        OPCODES.put(0x3C, "J");
+        OPCODES.put(0x48, "JSUB");  // +JSUB 포함
+        OPCODES.put(0x4C, "RSUB");
+        OPCODES.put(0x50, "LDCH");
+        OPCODES.put(0x54, "STCH");
+        OPCODES.put(0x68, "LDB");
+        OPCODES.put(0xB4, "CLEAR");
+        OPCODES.put(0x74, "LDT");  // +LDT 포함
+        OPCODES.put(0x10, "STX");  // +STX 포함
+        OPCODES.put(0xA0, "COMPR");
+        OPCODES.put(0xB8, "TIXR");
+        OPCODES.put(0xE0, "TD");
+        OPCODES.put(0xD8, "RD");
+        OPCODES.put(0xDC, "WD");
+        OPCODES.put(0x38, "JLT");
+        OPCODES.put(0x14, "STL");
+        OPCODES.put(0xE4, "TS");    // test-and-set. 여러 CPU 사이의 lock에 사용한다
+    }
+
     public InstLuncher(ResourceManager resourceManager) {
         this.rMgr = resourceManager;
-        this.opcodeMap = new HashMap<>();
+        this.opcodeMap = OPCODES;
         this.handlerMap = new HashMap<>();
         initInstructions();
         useDev = false;
     }
 
     private void initInstructions() {
-        opcodeMap.put(0x00, "LDA");
-        opcodeMap.put(0x0C, "STA");
-        opcodeMap.put(0x28, "COMP");
-        opcodeMap.put(0x30, "JEQ");
-        opcodeMap.put(0x3C, "J");
-        opcodeMap.put(0x48, "JSUB");  // +JSUB 포함
-        opcodeMap.put(0x4C, "RSUB");
-        opcodeMap.put(0x50, "LDCH");
-        opcodeMap.put(0x54, "STCH");
-        opcodeMap.put(0x68, "LDB");
-        opcodeMap.put(0xB4, "CLEAR");
-        opcodeMap.put(0x74, "LDT");  // +LDT 포함
-        opcodeMap.put(0x10, "STX");  // +STX 포함
-        opcodeMap.put(0xA0, "COMPR");
-        opcodeMap.put(0xB8, "TIXR");
-        opcodeMap.put(0xE0, "TD");
-        opcodeMap.put(0xD8, "RD");
-        opcodeMap.put(0xDC, "WD");
-        opcodeMap.put(0x38, "JLT");
-        opcodeMap.put(0x14, "STL");
-
         // 명령어 핸들러 등록
         handlerMap.put("LDA", this::handleLDA);
         handlerMap.put("STA", this::handleSTA);
@@ -67,6 +75,7 @@ public class InstLuncher {
         handlerMap.put("RD", this::handleRD);
         handlerMap.put("WD", this::handleWD);
         handlerMap.put("JLT", this::handleJLT);
+        handlerMap.put("TS", this::handleTS);
     }
 
     public void executeNextInstruction() {
@@ -75,6 +84,7 @@ public class InstLuncher {
         int opcode = byte1 & 0xFC;
 
         prevPC = pc;
+        rMgr.recordExecute(pc);
 
         String mnemonic = opcodeMap.get(opcode);
         if (mnemonic == null) {
@@ -100,7 +110,7 @@ public class InstLuncher {
         boolean immediate = info[1] == 1;
         int length = info[2];
 
-        int value = immediate ? addr : rMgr.readWord(addr);
+        int value = immediate ? addr : rMgr.readDataWord(addr);
         rMgr.setRegister("A", value);
         rMgr.setRegister("PC", pc + length);
     }
@@ -111,7 +121,7 @@ public class InstLuncher {
         int length = info[2];
 
         int value = rMgr.getRegister("A");
-        rMgr.writeWord(addr, value);
+        rMgr.writeDataWord(addr, value);
         rMgr.setRegister("PC", pc + length);
     }
 
@@ -121,7 +131,7 @@ public class InstLuncher {
         int length = info[2];
 
         int value = rMgr.getRegister("L");
-        rMgr.writeWord(addr, value);
+        rMgr.writeDataWord(addr, value);
         rMgr.setRegister("PC", pc + length);
     }
 
@@ -131,7 +141,7 @@ public class InstLuncher {
         int length = info[2];
 
         int value = rMgr.getRegister("X");
-        rMgr.writeWord(addr, value);
+        rMgr.writeDataWord(addr, value);
         rMgr.setRegister("PC", pc + length);
     }
 
@@ -151,7 +161,7 @@ public class InstLuncher {
         int length = info[2];
 
         int a = rMgr.getRegister("A");
-        int val = immediate ? addr : rMgr.readWord(addr);
+        int val = immediate ? addr : rMgr.readDataWord(addr);
 
         if (a == val) rMgr.setRegister("SW", 0);
         else if (a < val) rMgr.setRegister("SW", -1);
@@ -182,7 +192,7 @@ public class InstLuncher {
         boolean immediate = info[1] == 1;
         int length = info[2];
 
-        int value = immediate ? addr : rMgr.readWord(addr);
+        int value = immediate ? addr : rMgr.readDataWord(addr);
         rMgr.setRegister("B", value);
         rMgr.setRegister("PC", pc + length);
     }
@@ -193,7 +203,7 @@ public class InstLuncher {
         boolean immediate = info[1] == 1;
         int length = info[2];
 
-        int value = immediate ? addr : rMgr.readWord(addr);
+        int value = immediate ? addr : rMgr.readDataWord(addr);
         rMgr.setRegister("T", value);
         rMgr.setRegister("PC", pc + length);
     }
@@ -254,7 +264,7 @@ public class InstLuncher {
         int addr = info[0];
         int length = info[2];
 
-        int value = Byte.toUnsignedInt(rMgr.readByte(addr));
+        int value = Byte.toUnsignedInt(rMgr.readDataByte(addr));
         rMgr.setRegister("A", value);
         rMgr.setRegister("PC", pc + length);
     }
@@ -265,7 +275,7 @@ public class InstLuncher {
         int length = info[2];
 
         int value = rMgr.getRegister("A") & 0xFF;
-        rMgr.writeByte(addr, (byte) value);
+        rMgr.writeDataByte(addr, (byte) value);
         rMgr.setRegister("PC", pc + length);
     }
 
@@ -273,7 +283,7 @@ public class InstLuncher {
         int[] info = getTargetAddress(pc);
         int length = info[2];
 
-        String devName = String.format("%02X", rMgr.readByte(info[0]) & 0xFF);
+        String devName = String.format("%02X", rMgr.readDataByte(info[0]) & 0xFF);
         rMgr.testDevice(devName);
         rMgr.setRegister("PC", pc + length);
 
@@ -284,7 +294,7 @@ public class InstLuncher {
         int[] info = getTargetAddress(pc);
         int length = info[2];
 
-        String devName = String.format("%02X", rMgr.readByte(info[0]) & 0xFF);
+        String devName = String.format("%02X", rMgr.readDataByte(info[0]) & 0xFF);
         byte[] read = rMgr.readDevice(devName, 1);
 
         if (read != null) {
@@ -301,7 +311,7 @@ public class InstLuncher {
         int[] info = getTargetAddress(pc);
         int length = info[2];
 
-        String devName = String.format("%02X", rMgr.readByte(info[0]) & 0xFF);
+        String devName = String.format("%02X", rMgr.readDataByte(info[0]) & 0xFF);
         int value = rMgr.getRegister("A") & 0xFF;
         byte data = rMgr.intToBytes(value)[2];
 
@@ -321,70 +331,115 @@ public class InstLuncher {
         else rMgr.setRegister("PC", pc + length);
     }
 
+    /**
+     * TS m : A <- (m..m+2), (m..m+2) <- 1 을 원자적으로 수행한다. 원래 값이 0이었으면(lock을 얻었으면) SW를 0으로,
+     * 아니면 1로 설정한다. lock은 STA로 0을 저장해서 푼다.
+     */
+    private void handleTS(int pc) {
+        int[] info = getTargetAddress(pc);
+        int addr = info[0];
+        int length = info[2];
+
+        int old = rMgr.swapDataWord(addr, 1);
+        rMgr.setRegister("A", old);
+        rMgr.setRegister("SW", old == 0 ? 0 : 1);
+        rMgr.setRegister("PC", pc + length);
+    }
+
     /**
      * @return [target address, immediate mode면 1, instruction 길이 (3 or 4)]
      */
     private int[] getTargetAddress(int pc) {
-        int byte1 = rMgr.readByte(pc) & 0xFF;
-        int byte2 = rMgr.readByte(pc + 1) & 0xFF;;
-        int byte3 = rMgr.readByte(pc + 2) & 0xFF;;
-
-        boolean n = (byte1 & 0x02) != 0;
-        boolean i = (byte1 & 0x01) != 0;
-        boolean x = (byte2 & 0x80) != 0;
-        boolean b = (byte2 & 0x40) != 0;
-        boolean p = (byte2 & 0x20) != 0;
-        boolean e = (byte2 & 0x10) != 0;
-
-        int disp = ((byte2 & 0x0F) << 8) | byte3;
-        int target = 0;
-        int formatLength = e ? 4 : 3;
-
-        prevLen = formatLength;
-
-        // Format 4일 경우 disp 확장
-        if (e) {
-            int byte4 = Byte.toUnsignedInt(rMgr.readByte(pc + 3));
-            disp = (disp << 8) | byte4;
-        }
+        Operand op = operand;
+        op.decode(rMgr, pc);
+        prevLen = op.length;
 
         // 1. Immediate (n=0, i=1): disp 자체가 값
-        if (!n && i) {
-            targetAddr = disp;
-            return new int[]{disp, 1, formatLength};
+        if (op.isImmediate()) {
+            targetAddr = op.disp;
+            return new int[]{op.disp, 1, op.length};
         }
 
         // 2. Simple or Indirect mode에서 target 계산
-        if (!e && (b || p)) disp = signExtend(disp, 12);
-
-        if (b) {
-            target = rMgr.getRegister("B") + disp;
-        } else if (p) {
-            target = pc + formatLength + disp;
+        int target;
+        if (op.b) {
+            target = rMgr.getRegister("B") + op.disp;
         } else {
-            target = disp;
+            target = op.targetFrom(pc);
         }
 
         // 3. Indexed addressing (x 비트)
-        if (!(n && !i) && x) {
+        if (!op.isIndirect() && op.x) {
             target += rMgr.getRegister("X");
         }
 
         // 4. Indirect (n=1, i=0): target 주소에 있는 word를 dereference
-        if (n && !i) {
-            int realAddr = rMgr.readWord(target);
+        if (op.isIndirect()) {
+            int realAddr = rMgr.readDataWord(target);
             targetAddr = realAddr;
 
-            return new int[]{realAddr, 0, formatLength};
+            return new int[]{realAddr, 0, op.length};
         }
 
         targetAddr = target;
         // 5. Simple (n=1, i=1) 또는 default
-        return new int[]{target, 0, formatLength};
+        return new int[]{target, 0, op.length};
     }
 
+    /**
+     * format 3/4 명령어의 nixbpe bit와 displacement. 실행할 때와 Predecoder가 역어셈블할 때 같은 규칙으로 해석하도록
+     * 함께 사용한다. 인스턴스를 재사용하므로 스레드마다 따로 가진다.
+     */
+    static final class Operand {
+        boolean n, i, x, b, p, e;
+        // 명령어 길이 (3 or 4)
+        int length;
+        // format 4이면 20bit로 확장한 값. 즉시값이 아니고 B, PC 기준인 format 3이면 부호 확장한 값
+        int disp;
+
+        void decode(ResourceManager rMgr, int address) {
+            int byte1 = rMgr.readByte(address) & 0xFF;
+            int byte2 = rMgr.readByte(address + 1) & 0xFF;
+            int byte3 = rMgr.readByte(address + 2) & 0xFF;
+
+            n = (byte1 & 0x02) != 0;
+            i = (byte1 & 0x01) != 0;
+            x = (byte2 & 0x80) != 0;
+            b = (byte2 & 0x40) != 0;
+            p = (byte2 & 0x20) != 0;
+            e = (byte2 & 0x10) != 0;
+            length = e ? 4 : 3;
+
+            disp = ((byte2 & 0x0F) << 8) | byte3;
+            // Format 4일 경우 disp 확장
+            if (e) disp = (disp << 8) | (rMgr.readByte(address + 3) & 0xFF);
+            else if (!isImmediate() && (b || p)) disp = signExtend(disp, 12);
+        }
+
+        boolean isImmediate() {
+            return !n && i;
+        }
+
+        boolean isIndirect() {
+            return n && !i;
+        }
+
+        /**
+         * @return B 레지스터를 쓰지 않는 명령어의 target 주소. X 레지스터와 indirect는 반영하지 않는다
+         */
+        int targetFrom(int address) {
+            return p ? address + length + disp : disp;
+        }
+    }
+
+    /**
+     * @return 2byte(format 2) 명령어이면 true. 나머지 명령어는 e bit에 따라 3byte 또는 4byte이다.
+     */
+    static boolean isFormat2(String mnemonic) {
+        return mnemonic.equals("CLEAR") || mnemonic.equals("COMPR") || mnemonic.equals("TIXR");
+    }
 
-    private int signExtend(int value, int bitCount) {
+    static int signExtend(int value, int bitCount) {
         if ((value & (1 << (bitCount - 1))) != 0) {
             return value | (~((1 << bitCount) - 1));
         }
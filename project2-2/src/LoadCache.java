@@ -0,0 +1,296 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * link와 relocation이 끝난 메모리 이미지를 object code의 내용으로 찾아 재사용하는 캐시. 같은 object code를 다시
+ * load할 때 record 해석과 relocation을 건너뛰고 메모리 구간을 그대로 복사한다.
+ *
+ * 캐시 key는 입력 파일들의 내용과 적재 시작 주소로 만든 SHA-256 값이다. 메모리에는 최근에 사용한 이미지를 capacity개까지
+ * 보관하고(LRU), 디렉토리를 지정하면 디스크에도 같은 개수까지 보관한다.
+ */
+public class LoadCache {
+    static final int DEFAULT_CAPACITY = 64;
+    // T record 구간을 함께 저장하면서 "SICI"에서 바꿨다. 이전 형식의 파일은 읽지 못하므로 지우고 다시 만든다.
+    static final int IMAGE_MAGIC = 0x53494332; // "SIC2"
+
+    private final int capacity;
+    private final File directory;
+    private final LinkedHashMap<String, LinkedImage> images;
+
+    public LoadCache() {
+        this(DEFAULT_CAPACITY, null);
+    }
+
+    /**
+     * @param capacity  보관할 이미지의 최대 개수
+     * @param directory 이미지를 저장할 디렉토리. null이면 메모리에만 보관한다
+     */
+    public LoadCache(int capacity, File directory) {
+        this.capacity = capacity;
+        this.directory = directory;
+        this.images = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LinkedImage> eldest) {
+                return size() > LoadCache.this.capacity;
+            }
+        };
+
+        if (directory != null) directory.mkdirs();
+    }
+
+    /**
+     * 입력 파일들의 내용과 적재 시작 주소로 캐시 key를 만든다.
+     */
+    public String key(File[] objectCodes, int memStartAddr) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        digest.update(new byte[]{(byte) (memStartAddr >> 16), (byte) (memStartAddr >> 8), (byte) memStartAddr});
+        for (File objectCode : objectCodes) {
+            byte[] content = Files.readAllBytes(objectCode.toPath());
+            int length = content.length;
+            digest.update(new byte[]{(byte) (length >> 24), (byte) (length >> 16), (byte) (length >> 8), (byte) length});
+            digest.update(content);
+        }
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) key.append(String.format("%02x", b));
+        return key.toString();
+    }
+
+    /**
+     * key에 해당하는 이미지를 찾는다. 메모리에 없으면 디스크에서 읽어온다.
+     *
+     * @return 찾은 이미지. 없으면 null
+     */
+    public synchronized LinkedImage get(String key) {
+        LinkedImage image = images.get(key);
+        if (image != null || directory == null) return image;
+
+        File file = imageFile(key);
+        if (!file.exists()) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            image = LinkedImage.read(in);
+        } catch (IOException e) {
+            // 손상된 파일은 없는 것으로 취급하고 지운다.
+            file.delete();
+            return null;
+        }
+
+        file.setLastModified(System.currentTimeMillis());
+        images.put(key, image);
+        return image;
+    }
+
+    /**
+     * 이미지를 캐시에 보관한다. 디렉토리가 지정되어 있으면 디스크에도 저장하고 오래된 파일을 지운다.
+     */
+    public synchronized void put(String key, LinkedImage image) {
+        images.put(key, image);
+        if (directory == null) return;
+
+        File file = imageFile(key);
+        File temp = new File(directory, key + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            image.write(out);
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) temp.delete();
+
+        evictFiles();
+    }
+
+    private void evictFiles() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".img"));
+        if (files == null || files.length <= capacity) return;
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (int i = 0; i < files.length - capacity; i++) {
+            files[i].delete();
+        }
+    }
+
+    private File imageFile(String key) {
+        return new File(directory, key + ".img");
+    }
+
+    /**
+     * link가 끝난 프로그램의 메모리 이미지. 각 control section의 메모리 구간과 csInfos, symbol table, 시작 주소,
+     * 그리고 그 안에서 T record가 기록한 구간을 가진다.
+     */
+    public static class LinkedImage {
+        int memStartAddr;
+        int progStartAddr;
+        int[] rangeStarts;
+        byte[][] ranges;
+        int[] textStarts;
+        int[] textLengths;
+        HashMap<Integer, String[]> csInfos = new HashMap<>();
+        ArrayList<SymbolTable> symbolTables = new ArrayList<>();
+
+        /**
+         * load가 끝난 control section들의 메모리 구간과 정보로 이미지를 만든다.
+         */
+        static LinkedImage capture(ResourceManager rMgr, ArrayList<SicLoader.ControlSection> sections) {
+            LinkedImage image = new LinkedImage();
+            image.memStartAddr = rMgr.memStartAddr;
+            image.progStartAddr = rMgr.progStartAddr;
+
+            int count = sections.size();
+            image.rangeStarts = new int[count];
+            image.ranges = new byte[count][];
+
+            for (int i = 0; i < count; i++) {
+                SicLoader.ControlSection section = sections.get(i);
+                String[] csInfo = rMgr.csInfos.get(section.csAddr);
+                int length = Integer.parseInt(csInfo[2], 16);
+
+                image.rangeStarts[i] = section.csAddr;
+                image.ranges[i] = rMgr.getMemory(section.csAddr, length);
+                image.csInfos.put(section.csAddr, csInfo.clone());
+                image.symbolTables.add(section.symbolTable);
+            }
+            image.captureText(rMgr.textAddresses, rMgr.memory.length);
+            return image;
+        }
+
+        /**
+         * control section 구간 안에서 T record가 기록한 주소를 연속된 구간들로 모은다.
+         */
+        private void captureText(BitSet text, int size) {
+            ArrayList<int[]> runs = new ArrayList<>();
+            for (int i = 0; i < ranges.length; i++) {
+                int end = Math.min(rangeStarts[i] + ranges[i].length, size);
+                for (int from = text.nextSetBit(rangeStarts[i]); from >= 0 && from < end; from = text.nextSetBit(from)) {
+                    int to = Math.min(text.nextClearBit(from), end);
+                    runs.add(new int[]{from, to - from});
+                    from = to;
+                }
+            }
+
+            textStarts = new int[runs.size()];
+            textLengths = new int[runs.size()];
+            for (int i = 0; i < runs.size(); i++) {
+                textStarts[i] = runs.get(i)[0];
+                textLengths[i] = runs.get(i)[1];
+            }
+        }
+
+        /**
+         * 이미지를 ResourceManager의 메모리로 복사하고 csInfos, symbol table, 시작 주소를 되돌린다.
+         */
+        void restore(ResourceManager rMgr, ArrayList<SymbolTable> symbolTables) {
+            byte[] memory = rMgr.memory;
+            for (int i = 0; i < ranges.length; i++) {
+                int start = rangeStarts[i];
+                int length = ranges[i].length;
+
+                if (start + length <= memory.length) {
+                    System.arraycopy(ranges[i], 0, memory, start, length);
+                } else {
+                    rMgr.setMemory(start, ranges[i], length);
+                }
+            }
+
+            for (Map.Entry<Integer, String[]> entry : csInfos.entrySet()) {
+                rMgr.csInfos.put(entry.getKey(), entry.getValue().clone());
+            }
+            for (int i = 0; i < textStarts.length; i++) {
+                rMgr.textAddresses.set(textStarts[i], textStarts[i] + textLengths[i]);
+            }
+            symbolTables.addAll(this.symbolTables);
+            rMgr.setProgramStart(progStartAddr);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(IMAGE_MAGIC);
+            out.writeInt(memStartAddr);
+            out.writeInt(progStartAddr);
+
+            out.writeInt(ranges.length);
+            for (int i = 0; i < ranges.length; i++) {
+                out.writeInt(rangeStarts[i]);
+                out.writeInt(ranges[i].length);
+                out.write(ranges[i]);
+            }
+
+            out.writeInt(textStarts.length);
+            for (int i = 0; i < textStarts.length; i++) {
+                out.writeInt(textStarts[i]);
+                out.writeInt(textLengths[i]);
+            }
+
+            out.writeInt(csInfos.size());
+            for (Map.Entry<Integer, String[]> entry : csInfos.entrySet()) {
+                out.writeInt(entry.getKey());
+                for (String field : entry.getValue()) out.writeUTF(field);
+            }
+
+            out.writeInt(symbolTables.size());
+            for (SymbolTable table : symbolTables) {
+                out.writeInt(table.size());
+                for (int i = 0; i < table.size(); i++) {
+                    out.writeUTF(table.getSymbol(i));
+                    out.writeInt(table.getAddress(i));
+                }
+            }
+        }
+
+        static LinkedImage read(DataInputStream in) throws IOException {
+            if (in.readInt() != IMAGE_MAGIC) throw new IOException("Not a linked image");
+
+            LinkedImage image = new LinkedImage();
+            image.memStartAddr = in.readInt();
+            image.progStartAddr = in.readInt();
+
+            int count = in.readInt();
+            image.rangeStarts = new int[count];
+            image.ranges = new byte[count][];
+            for (int i = 0; i < count; i++) {
+                image.rangeStarts[i] = in.readInt();
+                image.ranges[i] = new byte[in.readInt()];
+                in.readFully(image.ranges[i]);
+            }
+
+            int textCount = in.readInt();
+            image.textStarts = new int[textCount];
+            image.textLengths = new int[textCount];
+            for (int i = 0; i < textCount; i++) {
+                image.textStarts[i] = in.readInt();
+                image.textLengths[i] = in.readInt();
+            }
+
+            int csCount = in.readInt();
+            for (int i = 0; i < csCount; i++) {
+                int addr = in.readInt();
+                image.csInfos.put(addr, new String[]{in.readUTF(), in.readUTF(), in.readUTF()});
+            }
+
+            int tableCount = in.readInt();
+            for (int i = 0; i < tableCount; i++) {
+                SymbolTable table = new SymbolTable();
+                int symbolCount = in.readInt();
+                for (int j = 0; j < symbolCount; j++) {
+                    table.putSymbol(in.readUTF(), in.readInt());
+                }
+                image.symbolTables.add(table);
+            }
+            return image;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * 메모리에 적재된 프로그램 하나의 정보. 여러 프로그램을 서로 다른 주소에 함께 적재할 수 있으므로 ResourceManager는
+ * 적재된 순서대로 LoadedProgram을 보관한다.
+ */
+public class LoadedProgram {
+    final String name;      // 첫 control section의 이름
+    final int loadAddr;     // 적재 시작 주소
+    final int length;       // 모든 control section 길이의 합
+    final int startAddr;    // 첫 명령어의 주소
+    final SymbolTable estab; // 프로그램의 외부 symbol table
+
+    public LoadedProgram(String name, int loadAddr, int length, int startAddr, SymbolTable estab) {
+        this.name = name;
+        this.loadAddr = loadAddr;
+        this.length = length;
+        this.startAddr = startAddr;
+        this.estab = estab;
+    }
+
+    /**
+     * 주소가 이 프로그램이 차지하는 메모리 구간 안에 있는지 확인한다.
+     */
+    public boolean contains(int address) {
+        return address >= loadAddr && address < loadAddr + length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s @%06X (%04X bytes, start %06X)", name, loadAddr, length, startAddr);
+    }
+}
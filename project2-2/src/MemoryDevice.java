@@ -0,0 +1,68 @@
+import java.io.ByteArrayOutputStream;
+
+/**
+ * 메모리 버퍼를 디바이스로 사용한다. 읽기는 미리 넣어둔 입력 데이터에서, 쓰기는 내부 출력 버퍼로 이루어지므로 파일 입출력
+ * 없이 프로그램을 실행할 수 있다.
+ */
+public class MemoryDevice implements Device {
+    private final byte[] input;
+    private int position;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    public MemoryDevice() {
+        this(new byte[0]);
+    }
+
+    public MemoryDevice(byte[] input) {
+        this.input = input;
+    }
+
+    @Override
+    public boolean test() {
+        return true;
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) {
+        if (position >= input.length) return -1;
+
+        int count = Math.min(len, input.length - position);
+        System.arraycopy(input, position, buf, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void write(byte[] data, int off, int len) {
+        output.write(data, off, len);
+    }
+
+    /**
+     * 지금까지 디바이스로 출력된 데이터를 돌려준다.
+     */
+    public byte[] getOutput() {
+        return output.toByteArray();
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * 입력을 처음부터 다시 읽고, 출력 버퍼를 비운다.
+     */
+    @Override
+    public void reset() {
+        position = 0;
+        output.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "memory";
+    }
+}
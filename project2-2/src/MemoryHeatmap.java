@@ -0,0 +1,153 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 주소별 메모리 접근 횟수. 명령어가 데이터를 읽은 횟수, 쓴 횟수, 그 주소에서 명령어를 실행한 횟수를 int 배열에 따로
+ * 센다. ResourceManager에서 heatmap 모드를 켰을 때만 만들어지며, 시뮬레이터 스레드만 기록한다. 한 주소의 횟수 합 중
+ * 가장 큰 값은 기록할 때 함께 갱신하므로, 화면을 갱신할 때 배열 전체를 훑지 않는다.
+ *
+ * 기록한 내용은 MemoryView에서 색으로 겹쳐 보여주고, CSV나 256x256 PNG 이미지(한 pixel이 한 주소)로 저장할 수 있다.
+ */
+public class MemoryHeatmap {
+    static final Color READ_COLOR = new Color(0x3060FF);
+    static final Color WRITE_COLOR = new Color(0xFF3030);
+    static final Color EXEC_COLOR = new Color(0x20C040);
+
+    // 투명도 단계 수. 색마다 단계별 Color를 미리 만들어 두고 그릴 때 새로 만들지 않는다.
+    static final int ALPHA_LEVELS = 32;
+    private static final Color[] READ_SHADES = shades(READ_COLOR);
+    private static final Color[] WRITE_SHADES = shades(WRITE_COLOR);
+    private static final Color[] EXEC_SHADES = shades(EXEC_COLOR);
+
+    final int[] reads;
+    final int[] writes;
+    final int[] execs;
+
+    // 한 주소의 읽기, 쓰기, 실행 횟수 합 중 가장 큰 값
+    private int max;
+
+    public MemoryHeatmap(int size) {
+        reads = new int[size];
+        writes = new int[size];
+        execs = new int[size];
+    }
+
+    void recordRead(int address, int length) {
+        for (int i = 0; i < length; i++) {
+            int a = (address + i) & 0xFFFF;
+            updateMax(++reads[a] + writes[a] + execs[a]);
+        }
+    }
+
+    void recordWrite(int address, int length) {
+        for (int i = 0; i < length; i++) {
+            int a = (address + i) & 0xFFFF;
+            updateMax(reads[a] + ++writes[a] + execs[a]);
+        }
+    }
+
+    void recordExec(int address) {
+        int a = address & 0xFFFF;
+        updateMax(reads[a] + writes[a] + ++execs[a]);
+    }
+
+    private void updateMax(int total) {
+        if (total > max) max = total;
+    }
+
+    /**
+     * 기록한 횟수를 모두 지운다.
+     */
+    public void clear() {
+        Arrays.fill(reads, 0);
+        Arrays.fill(writes, 0);
+        Arrays.fill(execs, 0);
+        max = 0;
+    }
+
+    /**
+     * @return 한 주소의 읽기, 쓰기, 실행 횟수 합 중 가장 큰 값
+     */
+    public int maxCount() {
+        return max;
+    }
+
+    /**
+     * 주소 하나를 나타낼 색을 돌려준다. 가장 많은 접근 종류의 색을 쓰고, 접근 횟수의 log 비율을 ALPHA_LEVELS 단계의
+     * 투명도로 쓴다. 미리 만들어 둔 Color를 돌려주므로 byte마다 객체를 만들지 않는다.
+     *
+     * @param max maxCount()의 값
+     * @return 접근이 없으면 null
+     */
+    public Color colorAt(int address, int max) {
+        int read = reads[address], write = writes[address], exec = execs[address];
+        int total = read + write + exec;
+        if (total == 0 || max == 0) return null;
+
+        Color[] shades = exec >= read && exec >= write ? EXEC_SHADES : write >= read ? WRITE_SHADES : READ_SHADES;
+        int level = (int) ((ALPHA_LEVELS - 1) * Math.log1p(total) / Math.log1p(max));
+        return shades[Math.min(ALPHA_LEVELS - 1, level)];
+    }
+
+    /**
+     * @return base 색에 투명도 48부터 255까지를 ALPHA_LEVELS 단계로 나누어 입힌 색들
+     */
+    private static Color[] shades(Color base) {
+        Color[] shades = new Color[ALPHA_LEVELS];
+        for (int level = 0; level < ALPHA_LEVELS; level++) {
+            int alpha = 48 + 207 * level / (ALPHA_LEVELS - 1);
+            shades[level] = new Color(base.getRed(), base.getGreen(), base.getBlue(), alpha);
+        }
+        return shades;
+    }
+
+    /**
+     * 접근이 있었던 주소만 "address,reads,writes,execs" 형태의 CSV로 저장한다.
+     */
+    public void writeCsv(File file) throws IOException {
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.US_ASCII)))) {
+            out.println("address,reads,writes,execs");
+            for (int i = 0; i < reads.length; i++) {
+                if ((reads[i] | writes[i] | execs[i]) == 0) continue;
+                out.printf("%06X,%d,%d,%d%n", i, reads[i], writes[i], execs[i]);
+            }
+        }
+    }
+
+    /**
+     * 주소 하나를 pixel 하나로, 256byte를 한 줄로 그린 이미지를 PNG로 저장한다.
+     */
+    public void writeImage(File file) throws IOException {
+        int width = 256;
+        int height = (reads.length + width - 1) / width;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.white);
+        g.fillRect(0, 0, width, height);
+
+        int max = maxCount();
+        for (int i = 0; i < reads.length; i++) {
+            Color color = colorAt(i, max);
+            if (color == null) continue;
+            g.setColor(color);
+            g.fillRect(i % width, i / width, 1, 1);
+        }
+        g.dispose();
+
+        ImageIO.write(image, "png", file);
+    }
+
+    /**
+     * 파일 확장자가 .csv이면 CSV로, 아니면 PNG 이미지로 저장한다.
+     */
+    public void export(File file) throws IOException {
+        if (file.getName().toLowerCase().endsWith(".csv")) writeCsv(file);
+        else writeImage(file);
+    }
+}
@@ -0,0 +1,207 @@
+import javax.swing.*;
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * 메모리 내용을 16byte씩 한 줄로 보여주는 hex view. 화면에 보이는 줄만 마지막으로 반영한 메모리 사본에서 읽어서 그리며,
+ * 갱신할 때는 쓰기가 있었던 page만 사본과 비교해서 값이 바뀐 줄과 강조 구간이 바뀐 줄만 다시 그린다.
+ *
+ * ResourceManager의 heatmap 모드가 켜져 있으면 byte마다 접근 횟수를 MemoryHeatmap의 색으로 배경에 겹쳐 그린다.
+ */
+public class MemoryView extends JComponent implements Scrollable {
+    static final int BYTES_PER_ROW = 16;
+    static final Color HIGHLIGHT_COLOR = Color.yellow;
+
+    private final ResourceManager rMgr;
+    private final int rows;
+
+    // 마지막으로 화면에 반영한 메모리 내용
+    private final byte[] shadow;
+
+    // 강조할 구간 (현재 실행한 명령어)
+    private int highlightStart;
+    private int highlightLen;
+
+    // heatmap 모드일 때 색의 기준이 되는 최대 접근 횟수. MemoryHeatmap이 기록하면서 갱신한 값을 update마다 가져온다.
+    private int heatMax;
+
+    private final char[] rowChars = new char[6 + BYTES_PER_ROW * 2];
+    private int rowHeight;
+    private int charWidth;
+    private int ascent;
+
+    public MemoryView(ResourceManager rMgr) {
+        this.rMgr = rMgr;
+        this.rows = rMgr.memory.length / BYTES_PER_ROW;
+        this.shadow = rMgr.memory.clone();
+
+        setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        setOpaque(true);
+        setBackground(Color.white);
+        setForeground(Color.black);
+    }
+
+    @Override
+    public void setFont(Font font) {
+        super.setFont(font);
+        FontMetrics metrics = getFontMetrics(font);
+        rowHeight = metrics.getHeight();
+        charWidth = metrics.charWidth('0');
+        ascent = metrics.getAscent();
+        revalidate();
+    }
+
+    /**
+     * 메모리와 강조 구간을 최신 상태로 맞춘다. dirtyPages에 표시된 page 안에서 값이 바뀐 줄만 repaint를 요청하고, 강조
+     * 구간이 화면에 보이도록 스크롤한다.
+     *
+     * @param dirtyPages ResourceManager.takeDirtyPages로 받은 page bitmap
+     * @param start      강조할 구간의 시작 주소
+     * @param len        강조할 구간의 길이
+     */
+    public void update(long[] dirtyPages, int start, int len) {
+        byte[] memory = rMgr.memory;
+        int rowsPerPage = (1 << ResourceManager.PAGE_SHIFT) / BYTES_PER_ROW;
+
+        for (int word = 0; word < dirtyPages.length; word++) {
+            for (long bits = dirtyPages[word]; bits != 0; bits &= bits - 1) {
+                int page = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                int lastRow = Math.min(rows, (page + 1) * rowsPerPage);
+
+                for (int row = page * rowsPerPage; row < lastRow; row++) {
+                    int from = row * BYTES_PER_ROW;
+                    int to = from + BYTES_PER_ROW;
+                    if (!Arrays.equals(memory, from, to, shadow, from, to)) {
+                        System.arraycopy(memory, from, shadow, from, BYTES_PER_ROW);
+                        repaintRows(row, row);
+                    }
+                }
+            }
+        }
+
+        // heatmap은 실행할 때마다 바뀌므로 보이는 영역을 통째로 다시 그린다.
+        if (rMgr.heatmap != null) refreshHeatmap();
+
+        if (start != highlightStart || len != highlightLen) {
+            repaintRange(highlightStart, highlightLen);
+            highlightStart = start;
+            highlightLen = len;
+            repaintRange(start, len);
+
+            if (len > 0) {
+                int row = start / BYTES_PER_ROW;
+                scrollRectToVisible(new Rectangle(0, row * rowHeight, 1, rowHeight));
+            }
+        }
+    }
+
+    /**
+     * heatmap의 색 기준을 다시 구하고 보이는 영역을 다시 그린다. heatmap 모드를 켜거나 껐을 때도 호출한다.
+     */
+    public void refreshHeatmap() {
+        MemoryHeatmap heatmap = rMgr.heatmap;
+        heatMax = heatmap != null ? heatmap.maxCount() : 0;
+        repaint(getVisibleRect());
+    }
+
+    private void repaintRange(int start, int len) {
+        if (len <= 0) return;
+        repaintRows(start / BYTES_PER_ROW, (start + len - 1) / BYTES_PER_ROW);
+    }
+
+    private void repaintRows(int firstRow, int lastRow) {
+        repaint(0, firstRow * rowHeight, getWidth(), (lastRow - firstRow + 1) * rowHeight);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        g.setFont(getFont());
+
+        int firstRow = Math.max(0, clip.y / rowHeight);
+        int lastRow = Math.min(rows - 1, (clip.y + clip.height) / rowHeight);
+        int hexX = 6 * charWidth;
+        MemoryHeatmap heatmap = rMgr.heatmap;
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            int addr = row * BYTES_PER_ROW;
+            int y = row * rowHeight;
+
+            // heatmap 배경
+            if (heatmap != null) {
+                for (int i = 0; i < BYTES_PER_ROW; i++) {
+                    Color heat = heatmap.colorAt(addr + i, heatMax);
+                    if (heat == null) continue;
+                    g.setColor(heat);
+                    g.fillRect(hexX + i * 2 * charWidth, y, 2 * charWidth, rowHeight);
+                }
+            }
+
+            // 강조 구간 배경
+            int hlFrom = Math.max(addr, highlightStart);
+            int hlTo = Math.min(addr + BYTES_PER_ROW, highlightStart + highlightLen);
+            if (hlFrom < hlTo) {
+                g.setColor(HIGHLIGHT_COLOR);
+                g.fillRect(hexX + (hlFrom - addr) * 2 * charWidth, y, (hlTo - hlFrom) * 2 * charWidth, rowHeight);
+            }
+
+            formatRow(addr);
+            g.setColor(getForeground());
+            g.drawChars(rowChars, 0, rowChars.length, 0, y + ascent);
+        }
+    }
+
+    /**
+     * "XXXX: " 다음에 16byte를 이어서 rowChars에 채운다. 줄마다 String을 만들지 않기 위해 배열을 재사용한다.
+     */
+    private void formatRow(int addr) {
+        putHex(0, addr >> 8);
+        putHex(2, addr);
+        rowChars[4] = ':';
+        rowChars[5] = ' ';
+
+        for (int i = 0; i < BYTES_PER_ROW; i++) {
+            putHex(6 + i * 2, shadow[addr + i]);
+        }
+    }
+
+    private void putHex(int pos, int value) {
+        rowChars[pos] = HEX[(value >> 4) & 0xF];
+        rowChars[pos + 1] = HEX[value & 0xF];
+    }
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension((rowChars.length + 1) * charWidth, rows * rowHeight);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return new Dimension((rowChars.length + 1) * charWidth, 16 * rowHeight);
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? rowHeight : charWidth;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        if (orientation == SwingConstants.HORIZONTAL) return visibleRect.width;
+        return Math.max(rowHeight, (visibleRect.height / rowHeight - 1) * rowHeight);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
@@ -0,0 +1,149 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Properties;
+
+/**
+ * 하나의 memory를 여러 CPU가 함께 쓰는 multiprocessor 모드. CPU마다 레지스터와 디바이스를 따로 가진
+ * ResourceManager view와 SicSimulator를 만들고, 각각을 별도의 host 스레드에서 실행한다.
+ *
+ * memory 접근은 전역 lock 없이 SharedMemory를 거치므로 word 쓰기는 원자적이며, guest는 TS 명령어로 lock을 구현할
+ * 수 있다. 모든 CPU는 프로그램의 시작 주소에서 출발하며, X 레지스터에 자기 CPU 번호(0부터)를 가지고 시작한다.
+ * 디바이스는 CPU마다 따로 열리므로 CPU끼리 같은 디바이스 번호를 쓰지 않도록 한다.
+ *
+ * 사용법 : java MultiCpuSimulator [-n CPU수] [-d 디바이스=설정 ...] object파일 ...
+ *
+ * 실행이 끝나면 CPU별 레지스터와 수행한 명령어 수, 전체 처리량을 출력한다. CPU 수를 바꿔가며 실행하면 host core 수에
+ * 따라 시뮬레이터가 얼마나 확장되는지 볼 수 있다.
+ */
+public class MultiCpuSimulator {
+    final ResourceManager resourceManager;
+    final ResourceManager[] views;
+    final SicSimulator[] cpus;
+
+    private final Throwable[] failures;
+    private long elapsedNanos;
+
+    /**
+     * @param resourceManager 프로그램을 적재한 ResourceManager
+     * @param cpuCount        CPU의 수
+     */
+    public MultiCpuSimulator(ResourceManager resourceManager, int cpuCount) {
+        if (cpuCount <= 0) throw new IllegalArgumentException("CPU count must be positive: " + cpuCount);
+        this.resourceManager = resourceManager;
+        this.views = new ResourceManager[cpuCount];
+        this.cpus = new SicSimulator[cpuCount];
+        this.failures = new Throwable[cpuCount];
+    }
+
+    /**
+     * CPU마다 view를 만들고 실행할 준비를 한다. 프로그램을 적재한 뒤에 호출한다.
+     *
+     * @param deviceConfig 디바이스를 만들 DeviceConfig. pipe는 이 안에서 CPU끼리 공유된다
+     * @param devices      CPU마다 적용할 디바이스 설정
+     */
+    public void load(DeviceConfig deviceConfig, Properties devices) {
+        for (int i = 0; i < cpus.length; i++) {
+            views[i] = resourceManager.createCpuView();
+            deviceConfig.apply(views[i], devices);
+
+            cpus[i] = new SicSimulator(views[i]);
+            cpus[i].setLogging(false);
+            cpus[i].load(null);
+            views[i].setRegister("X", i);
+        }
+    }
+
+    /**
+     * 모든 CPU를 각자의 스레드에서 끝까지 실행하고, 모두 끝날 때까지 기다린다. CPU 하나에서 예외가 발생하면 나머지가
+     * 끝난 뒤에 던진다.
+     */
+    public void run() throws InterruptedException {
+        Thread[] threads = new Thread[cpus.length];
+        for (int i = 0; i < cpus.length; i++) {
+            int cpu = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    cpus[cpu].allStep();
+                } catch (Throwable t) {
+                    failures[cpu] = t;
+                    cpus[cpu].stop();
+                } finally {
+                    views[cpu].closeDevice();
+                }
+            }, "cpu-" + i);
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        elapsedNanos = System.nanoTime() - start;
+
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] != null) throw new IllegalStateException("CPU " + i + " failed", failures[i]);
+        }
+    }
+
+    /**
+     * @return 모든 CPU가 수행한 명령어 수의 합
+     */
+    public long getInstructionCount() {
+        long total = 0;
+        for (SicSimulator cpu : cpus) total += cpu.instructionCount;
+        return total;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * CPU별 레지스터와 명령어 수, 전체 처리량을 출력한다.
+     */
+    public void printResult() {
+        String[] names = {"A", "X", "L", "B", "S", "T", "F", "", "PC", "SW"};
+        for (int i = 0; i < cpus.length; i++) {
+            StringBuilder line = new StringBuilder("CPU" + i);
+            for (int r = 0; r < names.length; r++) {
+                if (names[r].isEmpty()) continue;
+                line.append(String.format(" %s=%06X", names[r], views[i].getRegister(r) & 0xFFFFFF));
+            }
+            line.append(" instructions=").append(cpus[i].instructionCount);
+            System.out.println(line);
+        }
+
+        long total = getInstructionCount();
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("cpus=%d instructions=%d elapsed=%.3fs mips=%.2f%n",
+                cpus.length, total, seconds, seconds == 0 ? 0 : total / seconds / 1e6);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int cpuCount = Runtime.getRuntime().availableProcessors();
+        Properties devices = new Properties();
+        ArrayList<File> programs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-n" -> cpuCount = Integer.parseInt(args[++i]);
+                case "-d" -> {
+                    String[] kv = args[++i].split("=", 2);
+                    devices.setProperty(kv[0], kv[1]);
+                }
+                default -> programs.add(new File(args[i]));
+            }
+        }
+
+        if (programs.isEmpty()) {
+            System.err.println("Usage: java MultiCpuSimulator [-n cpus] [-d DEV=SPEC ...] objectfile ...");
+            System.exit(1);
+        }
+
+        ResourceManager resourceManager = new ResourceManager();
+        new SicLoader(resourceManager).load(programs.toArray(new File[0]));
+
+        MultiCpuSimulator simulator = new MultiCpuSimulator(resourceManager, cpuCount);
+        simulator.load(new DeviceConfig(), devices);
+        simulator.run();
+        simulator.printResult();
+    }
+}
@@ -0,0 +1,146 @@
+import java.io.IOException;
+
+/**
+ * 한 시뮬레이터의 출력 디바이스를 다른 시뮬레이터의 입력 디바이스로 연결하는 파이프의 한쪽 끝. Pipe 하나를 만들고
+ * writer()는 출력하는 쪽 ResourceManager에, reader()는 입력받는 쪽 ResourceManager에 연결해서 사용한다.
+ *
+ * 버퍼가 비어 있으면 읽는 쪽의 TD가, 가득 차 있으면 쓰는 쪽의 TD가 사용 불가를 돌려준다. 출력하는 쪽이 close하면
+ * 읽는 쪽은 남은 데이터를 모두 읽은 뒤 EOF를 받는다.
+ */
+public class PipeDevice implements Device {
+    private final Pipe pipe;
+    private final boolean writeEnd;
+
+    private PipeDevice(Pipe pipe, boolean writeEnd) {
+        this.pipe = pipe;
+        this.writeEnd = writeEnd;
+    }
+
+    @Override
+    public boolean test() {
+        return writeEnd ? pipe.writable() : pipe.readable();
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws IOException {
+        if (writeEnd) throw new IOException("Cannot read from the write end of a pipe");
+        return pipe.read(buf, off, len);
+    }
+
+    @Override
+    public void write(byte[] data, int off, int len) throws IOException {
+        if (!writeEnd) throw new IOException("Cannot write to the read end of a pipe");
+        pipe.write(data, off, len);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+        if (writeEnd) pipe.close();
+    }
+
+    /**
+     * 파이프를 비우고 다시 연다. 두 끝이 같은 Pipe를 쓰므로 어느 쪽을 reset해도 파이프 전체가 처음 상태가 된다.
+     */
+    @Override
+    public void reset() {
+        pipe.reset();
+    }
+
+    @Override
+    public String toString() {
+        return writeEnd ? "pipe:out" : "pipe:in";
+    }
+
+    /**
+     * 두 디바이스가 공유하는 고정 크기의 원형 버퍼.
+     */
+    public static class Pipe {
+        static final int DEFAULT_CAPACITY = 4096;
+
+        private final byte[] buffer;
+        private int head; // 다음에 읽을 위치
+        private int size; // 버퍼에 남아있는 byte 수
+        private boolean closed;
+
+        private final PipeDevice reader = new PipeDevice(this, false);
+        private final PipeDevice writer = new PipeDevice(this, true);
+
+        public Pipe() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        public Pipe(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        public PipeDevice reader() {
+            return reader;
+        }
+
+        public PipeDevice writer() {
+            return writer;
+        }
+
+        synchronized boolean readable() {
+            return closed || size > 0;
+        }
+
+        synchronized boolean writable() {
+            return !closed && size < buffer.length;
+        }
+
+        synchronized int read(byte[] buf, int off, int len) throws IOException {
+            while (size == 0) {
+                if (closed) return -1;
+                await();
+            }
+
+            int count = Math.min(len, size);
+            for (int i = 0; i < count; i++) {
+                buf[off + i] = buffer[(head + i) % buffer.length];
+            }
+            head = (head + count) % buffer.length;
+            size -= count;
+            notifyAll();
+            return count;
+        }
+
+        synchronized void write(byte[] data, int off, int len) throws IOException {
+            for (int i = 0; i < len; i++) {
+                while (size == buffer.length && !closed) {
+                    await();
+                }
+                if (closed) throw new IOException("Pipe closed");
+
+                buffer[(head + size) % buffer.length] = data[off + i];
+                size++;
+                notifyAll();
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+
+        synchronized void reset() {
+            head = 0;
+            size = 0;
+            closed = false;
+            notifyAll();
+        }
+
+        private void await() throws IOException {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for pipe", e);
+            }
+        }
+    }
+}
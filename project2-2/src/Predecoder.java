@@ -0,0 +1,273 @@
+import java.util.Arrays;
+
+/**
+ * 적재된 프로그램을 역어셈블한다. load가 끝나면 csInfos의 control section마다 시작 주소부터 명령어 길이만큼 건너뛰며 한
+ * 번씩 해석하고, 이후에는 메모리가 바뀐 구간만 다시 해석한다.
+ *
+ * 명령어 해석은 InstLuncher와 같은 규칙을 따른다. 즉, opcode 표는 InstLuncher.OPCODES를, nixbpe bit와 displacement는
+ * 실행할 때와 같은 InstLuncher.Operand를 사용한다. 단, 실행하지 않고 해석하므로 B, X 레지스터나 메모리 값에 따라 달라지는
+ * 부분은 계산하지 않고 표기만 한다. 표에 없는 opcode는 1byte 데이터(BYTE)로 나타낸다.
+ */
+public class Predecoder {
+    static final String[] REGISTER_NAMES = {"A", "X", "L", "B", "S", "T", "F", "?", "PC", "SW"};
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final ResourceManager rMgr;
+    private final InstLuncher.Operand operandFields = new InstLuncher.Operand();
+
+    // 주소별 해석 결과. 명령어의 시작 주소에만 값이 있다.
+    private final Instruction[] decoded = new Instruction[65536];
+
+    // 화면에 보여줄 순서대로 나열한 명령어 시작 주소
+    private int[] rows = new int[0];
+    private int rowCount;
+
+    public Predecoder(ResourceManager rMgr) {
+        this.rMgr = rMgr;
+    }
+
+    /**
+     * 해석한 명령어 하나. text는 화면에 그대로 보여줄 한 줄이다.
+     */
+    static final class Instruction {
+        final int address;
+        final int length;
+        final String mnemonic;
+        final String operand;
+        final String flags;
+        // 실행 전에 알 수 있는 target 주소. 즉시값이거나 B 레지스터 기준이면 -1이다.
+        final int target;
+        final String text;
+
+        Instruction(int address, int length, String label, String mnemonic, String operand, String flags, int target) {
+            this.address = address;
+            this.length = length;
+            this.mnemonic = mnemonic;
+            this.operand = operand;
+            this.flags = flags;
+            this.target = target;
+            this.text = format(address, label, mnemonic, operand, flags);
+        }
+
+        /**
+         * "주소  label mnemonic operand flags" 형태의 한 줄을 만든다. 명령어마다 호출되므로 String.format 대신 직접
+         * 자리를 맞춘다.
+         */
+        private static String format(int address, String label, String mnemonic, String operand, String flags) {
+            StringBuilder line = new StringBuilder(48);
+            for (int shift = 20; shift >= 0; shift -= 4) {
+                line.append(HEX[(address >> shift) & 0xF]);
+            }
+            line.append("  ");
+            pad(line, label, 9);
+            pad(line, mnemonic, 8);
+            pad(line, operand, 17);
+            return line.append(flags).toString();
+        }
+
+        private static void pad(StringBuilder line, String s, int width) {
+            line.append(s);
+            for (int k = s.length(); k < width; k++) line.append(' ');
+        }
+
+        boolean sameAs(Instruction other) {
+            return other != null && length == other.length && text.equals(other.text);
+        }
+    }
+
+    /**
+     * 모든 control section을 처음부터 다시 해석한다. 프로그램을 load한 뒤에 호출한다.
+     */
+    public void decodeAll() {
+        Arrays.fill(decoded, null);
+
+        AddressIndex index = rMgr.addressIndex;
+        for (int i = 0; i < index.sectionStarts.length; i++) {
+            decodeFrom(index.sectionStarts[i], index.sectionStarts[i], sectionEnd(index, i));
+        }
+        rebuildRows();
+    }
+
+    /**
+     * 쓰기가 있었던 page만 다시 해석한다. 바뀐 byte 때문에 명령어 경계가 달라지면 이전 해석과 경계가 다시 맞는 곳까지
+     * 이어서 해석한다.
+     *
+     * @param dirtyPages ResourceManager.takeDirtyPages로 받은 page bitmap
+     * @return 해석 결과가 하나라도 바뀌었으면 true
+     */
+    public boolean redecode(long[] dirtyPages) {
+        AddressIndex index = rMgr.addressIndex;
+        boolean changed = false;
+        boolean moved = false;
+
+        for (int word = 0; word < dirtyPages.length; word++) {
+            for (long bits = dirtyPages[word]; bits != 0; bits &= bits - 1) {
+                int page = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                int from = page << ResourceManager.PAGE_SHIFT;
+                int to = from + (1 << ResourceManager.PAGE_SHIFT);
+
+                for (int i = 0; i < index.sectionStarts.length; i++) {
+                    int start = Math.max(from, index.sectionStarts[i]);
+                    int end = sectionEnd(index, i);
+                    if (start >= Math.min(to, end)) continue;
+
+                    int result = decodeFrom(instructionStart(start, index.sectionStarts[i]), to, end);
+                    changed |= result != UNCHANGED;
+                    moved |= result == MOVED;
+                }
+            }
+        }
+
+        if (moved) rebuildRows();
+        return changed;
+    }
+
+    private static final int UNCHANGED = 0, CHANGED = 1, MOVED = 2;
+
+    /**
+     * from부터 명령어를 해석해서 저장한다. to를 지난 뒤 이전 해석의 명령어 경계를 만나면 멈춘다.
+     *
+     * @return UNCHANGED, 내용만 바뀌었으면 CHANGED, 명령어 경계가 바뀌었으면 MOVED
+     */
+    private int decodeFrom(int from, int to, int sectionEnd) {
+        int result = UNCHANGED;
+        int addr = from;
+
+        while (addr < sectionEnd) {
+            Instruction old = decoded[addr];
+            if (addr >= to && old != null) break;
+
+            Instruction ins = decode(addr, sectionEnd);
+            if (!ins.sameAs(old)) result = Math.max(result, old == null || old.length != ins.length ? MOVED : CHANGED);
+
+            decoded[addr] = ins;
+            for (int k = 1; k < ins.length; k++) {
+                if (decoded[addr + k] != null) {
+                    decoded[addr + k] = null;
+                    result = MOVED;
+                }
+            }
+            addr += ins.length;
+        }
+        return result;
+    }
+
+    /**
+     * address를 포함하는 기존 명령어의 시작 주소를 찾는다. 명령어는 최대 4byte이므로 세 칸 앞까지만 보면 된다.
+     */
+    private int instructionStart(int address, int sectionStart) {
+        for (int k = 0; k < 4 && address - k >= sectionStart; k++) {
+            Instruction ins = decoded[address - k];
+            if (ins != null) return ins.address + ins.length > address ? ins.address : address;
+        }
+        return address;
+    }
+
+    /**
+     * address의 명령어 하나를 해석한다. section 끝을 넘는 명령어는 BYTE로 나타낸다.
+     */
+    private Instruction decode(int address, int sectionEnd) {
+        int byte1 = rMgr.readByte(address) & 0xFF;
+        String mnemonic = InstLuncher.OPCODES.get(byte1 & 0xFC);
+        String label = labelAt(address);
+
+        if (mnemonic != null && InstLuncher.isFormat2(mnemonic) && address + 2 <= sectionEnd) {
+            int byte2 = rMgr.readByte(address + 1) & 0xFF;
+            String operand = registerName(byte2 >> 4);
+            if (mnemonic.equals("COMPR")) operand += "," + registerName(byte2 & 0x0F);
+
+            return new Instruction(address, 2, label, mnemonic, operand, "", -1);
+        }
+
+        if (mnemonic != null && address + 3 <= sectionEnd) {
+            InstLuncher.Operand op = operandFields;
+            op.decode(rMgr, address);
+            int length = op.length;
+
+            if (address + length <= sectionEnd) {
+                String flags = new String(new char[]{op.n ? 'n' : '-', op.i ? 'i' : '-', op.x ? 'x' : '-',
+                        op.b ? 'b' : '-', op.p ? 'p' : '-', op.e ? 'e' : '-'});
+                boolean noOperand = mnemonic.equals("RSUB");
+                if (op.e) mnemonic = "+" + mnemonic;
+                if (noOperand) {
+                    return new Instruction(address, length, label, mnemonic, "", flags, -1);
+                }
+
+                if (op.isImmediate()) {
+                    return new Instruction(address, length, label, mnemonic, "#" + op.disp, flags, -1);
+                }
+
+                int target;
+                String operand;
+                if (op.b) {
+                    target = -1;
+                    operand = Integer.toHexString(op.disp).toUpperCase() + "(B)";
+                } else {
+                    target = op.p ? op.targetFrom(address) & 0xFFFF : op.disp;
+                    operand = rMgr.addressIndex.annotate(target);
+                }
+
+                if (op.isIndirect()) operand = "@" + operand;
+                else if (op.x) operand += ",X";
+
+                return new Instruction(address, length, label, mnemonic, operand, flags, target);
+            }
+        }
+
+        return new Instruction(address, 1, label, "BYTE", "X'" + HEX[byte1 >> 4] + HEX[byte1 & 0xF] + "'", "", -1);
+    }
+
+    private int sectionEnd(AddressIndex index, int i) {
+        return Math.min(index.sectionEnds[i], decoded.length);
+    }
+
+    private String labelAt(int address) {
+        AddressIndex index = rMgr.addressIndex;
+        int i = index.symbolIndexAt(address);
+        return i >= 0 && index.symbolAddrs[i] == address ? index.symbolNames[i] : "";
+    }
+
+    private static String registerName(int reg) {
+        return reg < REGISTER_NAMES.length ? REGISTER_NAMES[reg] : String.valueOf(reg);
+    }
+
+    private void rebuildRows() {
+        AddressIndex index = rMgr.addressIndex;
+        rowCount = 0;
+
+        for (int i = 0; i < index.sectionStarts.length; i++) {
+            for (int addr = index.sectionStarts[i]; addr < sectionEnd(index, i) && decoded[addr] != null;
+                 addr += decoded[addr].length) {
+                if (rowCount == rows.length) rows = Arrays.copyOf(rows, Math.max(256, rowCount * 2));
+                rows[rowCount++] = addr;
+            }
+        }
+    }
+
+    /**
+     * @return 화면에 보여줄 명령어 줄 수
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return row번째 줄의 명령어
+     */
+    Instruction rowAt(int row) {
+        return decoded[rows[row]];
+    }
+
+    /**
+     * @return address를 포함하는 명령어의 줄 번호. 해석한 구간 밖이면 -1
+     */
+    public int rowOf(int address) {
+        int i = Arrays.binarySearch(rows, 0, rowCount, address);
+        if (i >= 0) return i;
+
+        i = -i - 2;
+        if (i < 0) return -1;
+        Instruction ins = decoded[rows[i]];
+        return ins.address + ins.length > address ? i : -1;
+    }
+}
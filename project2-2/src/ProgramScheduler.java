@@ -0,0 +1,158 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * 하나의 machine에 함께 적재된 여러 프로그램을 번갈아 실행하는 time-slice scheduler. 프로그램마다 레지스터 배열을
+ * 하나씩 가지고, 전환할 때는 ResourceManager.register를 다음 프로그램의 배열로 바꾸기만 하므로 레지스터를 복사하지
+ * 않는다.
+ *
+ * 명령어를 quantum개 수행했거나, TD가 디바이스를 사용할 수 없다고 알려주면 다음 프로그램으로 넘어간다. 그래서 한
+ * 프로그램이 TD 반복문에서 기다리는 동안 다른 프로그램이 실행된다. 프로그램 하나가 끝나면(PC가 0이 되거나 메모리를
+ * 벗어나면) 남은 프로그램을 이어서 실행하고, 모두 끝났을 때 시뮬레이터가 멈춘다.
+ *
+ * 프로그램은 SicLoader.loadAt이나 loadNext로 서로 다른 주소에 적재한 뒤 add로 등록하고, SicSimulator.setScheduler로
+ * 연결한다. 디바이스와 메모리는 모든 프로그램이 함께 쓴다.
+ */
+public class ProgramScheduler {
+    static final int DEFAULT_QUANTUM = 1000;
+
+    private final ResourceManager rMgr;
+    private final int quantum;
+
+    final ArrayList<Task> tasks = new ArrayList<>();
+    private int current;
+    private int remaining;
+    long switches;
+    // 프로그램마다 call stack을 따로 기록할 profiler. null이면 측정하지 않는다.
+    private StackProfiler profiler;
+
+    /**
+     * scheduler가 실행하는 프로그램 하나와 그 레지스터 context.
+     */
+    static final class Task {
+        final LoadedProgram program;
+        final int[] registers = new int[10];
+        // profiler가 이 프로그램의 JSUB/RSUB를 기록하는 stack
+        StackProfiler.CallStack stack;
+        long instructions;
+        long blocked;
+        boolean finished;
+
+        Task(LoadedProgram program) {
+            this.program = program;
+        }
+    }
+
+    public ProgramScheduler(ResourceManager rMgr, int quantum) {
+        if (quantum <= 0) throw new IllegalArgumentException("Quantum must be positive: " + quantum);
+        this.rMgr = rMgr;
+        this.quantum = quantum;
+    }
+
+    /**
+     * 적재된 프로그램을 실행할 목록에 추가한다. 프로그램은 자기 시작 주소에서 출발한다.
+     */
+    public void add(LoadedProgram program) {
+        Task task = new Task(program);
+        task.registers[8] = program.startAddr;
+        tasks.add(task);
+    }
+
+    /**
+     * 처음 실행할 프로그램의 시작 주소. ResourceManager.progStartAddr는 마지막으로 적재한 프로그램의 시작 주소이므로
+     * scheduler를 쓸 때는 이 주소에서 실행이 시작된다.
+     */
+    int entry() {
+        if (tasks.isEmpty()) throw new IllegalStateException("No programs to schedule");
+        return tasks.get(0).program.startAddr;
+    }
+
+    /**
+     * 모든 프로그램을 처음 상태로 되돌리고 첫 프로그램부터 실행한다. SicSimulator.load에서 호출한다.
+     *
+     * @param profiler entry()로 reset한 profiler. 첫 프로그램은 profiler의 현재 stack을 쓰고, 나머지 프로그램은
+     *                 자기 시작 주소에서 시작하는 stack을 새로 받는다. null이면 측정하지 않는다.
+     */
+    void start(StackProfiler profiler) {
+        if (tasks.isEmpty()) throw new IllegalStateException("No programs to schedule");
+
+        this.profiler = profiler;
+        for (Task task : tasks) {
+            Arrays.fill(task.registers, 0);
+            task.registers[8] = task.program.startAddr;
+            task.instructions = 0;
+            task.blocked = 0;
+            task.finished = false;
+            task.stack = null;
+            if (profiler != null) {
+                task.stack = task == tasks.get(0) ? profiler.currentStack() : profiler.newStack(task.program.startAddr);
+            }
+        }
+        switches = 0;
+        current = 0;
+        remaining = quantum;
+        rMgr.register = tasks.get(0).registers;
+    }
+
+    /**
+     * 명령어 하나를 수행한 뒤 호출한다. 필요하면 다른 프로그램으로 전환한다.
+     *
+     * @param mnemonic 수행한 명령어
+     * @param exited   수행한 프로그램이 끝났는지
+     * @return 실행할 프로그램이 더 없으면 true
+     */
+    boolean step(String mnemonic, boolean exited) {
+        Task task = tasks.get(current);
+        task.instructions++;
+
+        if (exited) {
+            task.finished = true;
+            return !switchToNext();
+        }
+
+        // TD 후 SW가 0이면 디바이스가 아직 준비되지 않았다.
+        boolean blocked = mnemonic.equals("TD") && rMgr.register[9] == 0;
+        if (blocked) task.blocked++;
+
+        if (blocked || --remaining == 0) switchToNext();
+        return false;
+    }
+
+    /**
+     * 현재 프로그램 다음부터 차례로 끝나지 않은 프로그램을 찾아 전환한다. 다른 프로그램이 없고 현재 프로그램이
+     * 끝나지 않았으면 그대로 이어서 실행한다.
+     *
+     * @return 실행할 프로그램이 있으면 true
+     */
+    private boolean switchToNext() {
+        remaining = quantum;
+        for (int i = 1; i <= tasks.size(); i++) {
+            int next = (current + i) % tasks.size();
+            if (tasks.get(next).finished) continue;
+
+            if (next != current) {
+                current = next;
+                rMgr.register = tasks.get(next).registers;
+                if (profiler != null) profiler.switchTo(tasks.get(next).stack);
+                switches++;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 프로그램별로 수행한 명령어 수, 디바이스를 기다린 횟수, 최종 레지스터를 정리해서 돌려준다.
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        for (Task task : tasks) {
+            int[] r = task.registers;
+            report.append(String.format("%-6s instructions=%d blocked=%d A=%06X X=%06X PC=%06X%s%n",
+                    task.program.name, task.instructions, task.blocked,
+                    r[0] & 0xFFFFFF, r[1] & 0xFFFFFF, r[8] & 0xFFFFFF, task.finished ? "" : " (running)"));
+        }
+        report.append("switches=").append(switches).append('\n');
+        return report.toString();
+    }
+}
@@ -1,6 +1,11 @@
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * ResourceManager는 컴퓨터의 가상 리소스들을 선언하고 관리하는 클래스이다. 크게 네가지의 가상 자원 공간을 선언하고, 이를
@@ -15,33 +20,68 @@ import java.util.HashMap;
  */
 public class ResourceManager {
     /**
-     * 디바이스는 원래 입출력 장치들을 의미 하지만 여기서는 파일로 디바이스를 대체한다. 즉, 'F1'이라는 디바이스는 'F1'이라는 이름의
-     * 파일을 의미한다. deviceManager는 디바이스의 이름을 입력받았을 때 해당 이름의 파일 입출력 관리 클래스를 리턴하는 역할을 한다.
-     * 예를 들어, 'A1'이라는 디바이스에서 파일을 read모드로 열었을 경우, hashMap에 <"A1", scanner(A1)> 등을
-     * 넣음으로서 이를 관리할 수 있다.
+     * 디바이스는 원래 입출력 장치들을 의미 하지만 여기서는 Device 인터페이스로 디바이스를 대체한다. deviceManager는
+     * 디바이스의 이름을 입력받았을 때 현재 열려있는 Device를 리턴하는 역할을 한다.
      *
-     * 변형된 형태로 사용하는 것 역시 허용한다. 예를 들면 key값으로 String대신 Integer를 사용할 수 있다. 파일 입출력을 위해
-     * 사용하는 stream 역시 자유로이 선택, 구현한다.
-     *
-     * 이것도 복잡하면 알아서 구현해서 사용해도 괜찮습니다.
+     * 어떤 Device를 사용할지는 deviceConfig에 등록된 설정을 따르며, 등록되지 않은 디바이스는 기존처럼 같은 이름의 파일을
+     * 의미한다. 즉, 'F1'이라는 디바이스는 별도의 설정이 없으면 'F1'이라는 이름의 파일이 된다.
      */
-    HashMap<String, Object> deviceManager = new HashMap<String, Object>();
+    HashMap<String, Device> deviceManager = new HashMap<>();
+    HashMap<String, Device> deviceConfig = new HashMap<>();
     byte[] memory = new byte[65536]; // String으로 수정해서 사용하여도 무방함.
     int[] register = new int[10];
     double register_F;
 
+    // 화면 갱신용 dirty page bitmap. 256byte page마다 1bit이며, 마지막으로 takeDirtyPages를 호출한 뒤 쓰기가 있었던
+    // page를 표시한다.
+    static final int PAGE_SHIFT = 8;
+    private final long[] dirtyPages = new long[(memory.length >> PAGE_SHIFT) / Long.SIZE];
+
+    // 주소별 접근 횟수. heatmap 모드가 꺼져 있으면 null이며 기록하지 않는다.
+    MemoryHeatmap heatmap;
+
+    // 여러 CPU가 memory를 함께 쓸 때의 원자적 접근. null이면 memory에 그대로 접근한다.
+    SharedMemory sharedMemory;
+
     SymbolTable symtabList;
     // 이외에도 필요한 변수 선언해서 사용할 것.
     
-    // 디바이스 읽기에 사용되는 변수
+    // 디바이스 읽기에 사용되는 변수. 디바이스별로 지금까지 읽은 byte 수를 기록한다.
     HashMap<String, Integer> offsets = new HashMap<>();
 
+    /**
+     * 출력 디바이스의 flush 시점. BUFFERED는 버퍼가 가득 찼을 때, 프로그램이 끝났을 때, closeDevice에서만 flush하고
+     * LINE은 개행 문자를 출력할 때마다, TEST는 TD로 디바이스를 확인할 때마다, WRITE는 WD마다 flush한다.
+     */
+    public enum FlushPolicy { BUFFERED, LINE, TEST, WRITE }
+
+    FlushPolicy flushPolicy = FlushPolicy.BUFFERED;
+
+    // 디바이스별 입출력 통계. GUI 등 다른 스레드에서도 읽으므로 ConcurrentHashMap을 사용한다.
+    final Map<String, DeviceStats> deviceStats = new ConcurrentHashMap<>();
+
+    // true이면 설정되지 않은 파일 디바이스도 AsyncDevice로 감싸서 별도의 스레드에서 입출력한다.
+    boolean asyncDevices;
+
+    // 설정되지 않은 디바이스 번호에 사용할 디바이스를 만든다. null이면 같은 이름의 파일을 사용한다.
+    Function<String, Device> defaultDevice;
+
     // control section 정보
     // [이름, 시작 주소, 길이]
     public HashMap<Integer, String[]> csInfos;
 
+    // 주소로 control section과 symbol을 찾기 위한 index. 프로그램을 load할 때마다 다시 만든다.
+    AddressIndex addressIndex = AddressIndex.EMPTY;
+
+    // 프로그램을 적재할 시작 주소. setLoadAddress로 바꿀 수 있다.
     int memStartAddr;
 
+    // 메모리에 적재된 프로그램들. 적재된 순서대로 보관한다.
+    final ArrayList<LoadedProgram> programs = new ArrayList<>();
+
+    // T record로 내용을 기록한 주소. RESB/RESW처럼 T record가 없는 공간은 포함하지 않는다.
+    final BitSet textAddresses = new BitSet();
+
     private static final HashMap<String, Integer> regMap = new HashMap<>();
     static {
         regMap.put("A", 0);
@@ -68,61 +108,177 @@ public class ResourceManager {
 
         csInfos = new HashMap<>();
         memStartAddr = 0x0;
+        programs.clear();
+        textAddresses.clear();
+        addressIndex = AddressIndex.EMPTY;
+        deviceStats.clear();
+        if (heatmap != null) heatmap.clear();
+        markAllDirty();
     }
 
     /**
-     * deviceManager가 관리하고 있는 파일 입출력 stream들을 전부 종료시키는 역할. 프로그램을 종료하거나 연결을 끊을 때
-     * 호출한다.
+     * deviceManager가 관리하고 있는 디바이스들을 전부 종료시키는 역할. 프로그램을 종료하거나 연결을 끊을 때
+     * 호출한다. 출력 버퍼에 남아있는 데이터는 close 전에 모두 flush된다. deviceConfig에 설정된 디바이스는 닫힌 채로
+     * 남아있다가 resetDevices에서 다시 사용할 수 있게 된다.
      */
     public void closeDevice() {
+        flushDevice();
         for (String key : deviceManager.keySet()) {
-            Object obj = deviceManager.get(key);
-
             try {
-                if (obj instanceof Closeable) {
-                    ((Closeable) obj).close();
-                }
-                if (obj instanceof Flushable) {
-                    ((Flushable) obj).flush();
-                }
+                deviceManager.get(key).close();
             } catch (Exception e) {
                 System.out.println("Error closing device " + key);
             }
         }
         deviceManager.clear();
+        offsets.clear();
     }
 
     /**
-     * 디바이스를 사용할 수 있는 상황인지 체크. TD명령어를 사용했을 때 호출되는 함수. 입출력 stream을 열고 deviceManager를
-     * 통해 관리시킨다.
-     *
-     * @param devName 확인하고자 하는 디바이스의 번호,또는 이름
+     * 열려있는 디바이스를 닫고 deviceConfig에 설정된 디바이스를 처음 상태로 되돌린다. 설정된 디바이스는 closeDevice
+     * 후에도 출력을 확인할 수 있도록 deviceConfig에 남아있으므로, 같은 ResourceManager로 새 실행을 시작할 때
+     * SicSimulator.load에서 호출한다.
      */
-    public void testDevice(String devName) {
-        if (!deviceManager.containsKey(devName)) {
+    public void resetDevices() {
+        closeDevice();
+        for (String key : deviceConfig.keySet()) {
             try {
-                File file = new File(devName);
-                if (!file.exists()) {
-                    file.createNewFile();
-                }
+                deviceConfig.get(key).reset();
+            } catch (IOException e) {
+                System.out.println("Error resetting device " + key);
+            }
+        }
+    }
+
+    /**
+     * 출력 디바이스의 버퍼에 남아있는 데이터를 내보낸다. 프로그램이 끝났을 때나 closeDevice에서 호출된다.
+     */
+    public void flushDevice() {
+        for (String key : deviceManager.keySet()) {
+            try {
+                deviceManager.get(key).flush();
+            } catch (IOException e) {
+                System.out.println("Error flushing device " + key);
+            }
+        }
+    }
 
-                // reader
-                BufferedReader reader = new BufferedReader(new FileReader(file));
-                deviceManager.put(devName + "_reader", reader);
+    /**
+     * 출력 디바이스의 flush 시점을 지정한다. 기본값은 BUFFERED로, 버퍼가 가득 찼을 때와 프로그램 종료, closeDevice
+     * 시점에만 flush한다.
+     *
+     * @param policy 새로 적용할 flush 정책
+     */
+    public void setFlushPolicy(FlushPolicy policy) {
+        this.flushPolicy = policy;
+    }
 
-                // writer
-                BufferedWriter writer = new BufferedWriter(new FileWriter(file, true));
-                deviceManager.put(devName + "_writer", writer);
+    /**
+     * 설정되지 않은 디바이스 번호에 대해 만들어지는 파일 디바이스를 비동기로 동작시킬지 지정한다.
+     *
+     * @param async true이면 입출력을 별도의 스레드에서 수행한다
+     */
+    public void setAsyncDevices(boolean async) {
+        this.asyncDevices = async;
+    }
 
-                setRegister("SW", (byte) 1);
+    /**
+     * 설정되지 않은 디바이스 번호를 처음 TD할 때 사용할 디바이스를 만드는 함수를 지정한다. 만들어진 디바이스는
+     * deviceConfig에 등록된다. null이면 기존처럼 같은 이름의 파일을 사용한다.
+     */
+    public void setDefaultDevice(Function<String, Device> defaultDevice) {
+        this.defaultDevice = defaultDevice;
+    }
+
+    /**
+     * 디바이스 번호에 사용할 Device를 지정한다. 이미 열려있는 같은 번호의 디바이스는 닫는다.
+     *
+     * @param devName 디바이스의 번호
+     * @param device  연결할 디바이스
+     */
+    public void attachDevice(String devName, Device device) {
+        deviceConfig.put(devName, device);
+
+        Device opened = deviceManager.remove(devName);
+        if (opened != null && opened != device) {
+            try {
+                opened.close();
             } catch (IOException e) {
-                setRegister("SW", (byte) 0);
+                System.out.println("Error closing device " + devName);
             }
-        } else {
-            setRegister("SW", (byte) 1);
         }
     }
 
+    /**
+     * 디바이스를 사용할 수 있는 상황인지 체크. TD명령어를 사용했을 때 호출되는 함수. 디바이스를 열고 deviceManager를
+     * 통해 관리시킨다. 한 번 열린 디바이스는 closeDevice가 호출될 때까지 유지된다. 디바이스가 아직 입출력을 처리하는
+     * 중이면 SW를 0으로 설정해서 사용 불가를 알린다.
+     *
+     * @param devName 확인하고자 하는 디바이스의 번호,또는 이름
+     */
+    public void testDevice(String devName) {
+        SimulatorEvents.DeviceIO event = new SimulatorEvents.DeviceIO();
+        event.begin();
+
+        Device device = deviceManager.get(devName);
+        if (device == null) {
+            device = deviceConfig.get(devName);
+            if (device == null && defaultDevice != null) {
+                device = defaultDevice.apply(devName);
+                deviceConfig.put(devName, device);
+            } else if (device == null) {
+                device = new FileDevice(new File(devName));
+                if (asyncDevices) device = new AsyncDevice(device, devName);
+            }
+
+            deviceManager.put(devName, device);
+            offsets.put(devName, 0);
+        } else if (flushPolicy == FlushPolicy.TEST) {
+            flush(devName, device);
+        }
+
+        boolean ready = device.test();
+        getDeviceStats(devName).recordTest(ready);
+        setRegister("SW", ready ? (byte) 1 : (byte) 0);
+
+        commitDeviceEvent(event, devName, "TD", 0, ready);
+    }
+
+    /**
+     * 디바이스 입출력 하나를 JFR event로 기록한다. JFR이 꺼져 있으면 아무것도 하지 않는다.
+     */
+    private static void commitDeviceEvent(SimulatorEvents.DeviceIO event, String devName, String operation,
+                                          int bytes, boolean ready) {
+        event.end();
+        if (!event.shouldCommit()) return;
+
+        event.device = devName;
+        event.operation = operation;
+        event.bytes = bytes;
+        event.ready = ready;
+        event.commit();
+    }
+
+    /**
+     * 디바이스의 입출력 통계를 돌려준다. 아직 사용하지 않은 디바이스라면 새로 만든다.
+     *
+     * @param devName 디바이스의 이름
+     * @return 통계
+     */
+    public DeviceStats getDeviceStats(String devName) {
+        return deviceStats.computeIfAbsent(devName, DeviceStats::new);
+    }
+
+    /**
+     * 지금까지 사용한 모든 디바이스의 입출력 통계를 한 줄씩 정리해서 돌려준다.
+     */
+    public String getDeviceReport() {
+        StringBuilder report = new StringBuilder();
+        deviceStats.keySet().stream().sorted()
+                .forEach(devName -> report.append(deviceStats.get(devName)).append('\n'));
+        return report.toString();
+    }
+
     /**
      * 디바이스로부터 원하는 개수만큼의 글자를 읽어들인다. RD명령어를 사용했을 때 호출되는 함수.
      *
@@ -131,31 +287,22 @@ public class ResourceManager {
      * @return 가져온 데이터
      */
     public byte[] readDevice(String devName, int num) {
-        byte[] buf = new byte[num];
-        BufferedReader reader = (BufferedReader) deviceManager.get(devName + "_reader");
+        SimulatorEvents.DeviceIO event = new SimulatorEvents.DeviceIO();
+        event.begin();
 
-        if (reader == null) {
-            throw new IllegalStateException("Device " + devName + " is not open");
-        }
+        byte[] buf = new byte[num];
+        Device device = getDevice(devName);
 
         try {
-            if (offsets.containsKey(devName)) {
-                offsets.put(devName, offsets.get(devName) + 1);
-            } else {
-                offsets.put(devName, 0);
-            }
-
-            int offset = offsets.get(devName);
-
-            for (int i = 0; i < offset; i++) reader.read();
-
             int readCount = 0;
-
             while (readCount < num) {
-                int c = reader.read();
-                if (c == -1) break;
-                buf[readCount++] = (byte) c;
+                int count = device.read(buf, readCount, num - readCount);
+                if (count < 0) break;
+                readCount += count;
             }
+            offsets.merge(devName, readCount, Integer::sum);
+            getDeviceStats(devName).recordRead(readCount);
+            commitDeviceEvent(event, devName, "RD", readCount, readCount == num);
 
             if (readCount < num) {
                 setRegister("A", 0);
@@ -169,29 +316,56 @@ public class ResourceManager {
     }
 
     /**
-     * 디바이스로 원하는 개수 만큼의 글자를 출력한다. WD명령어를 사용했을 때 호출되는 함수.
+     * 디바이스로 원하는 개수 만큼의 글자를 출력한다. WD명령어를 사용했을 때 호출되는 함수. 실제 flush 시점은
+     * flushPolicy를 따른다.
      *
      * @param devName 디바이스의 이름
      * @param data    보내는 데이터
      * @param num     보내는 글자의 개수
      */
     public void writeDevice(String devName, byte[] data, int num) {
-        BufferedWriter writer = (BufferedWriter) deviceManager.get(devName + "_writer");
+        SimulatorEvents.DeviceIO event = new SimulatorEvents.DeviceIO();
+        event.begin();
 
-        if (writer == null) {
-            throw new IllegalStateException("Device " + devName + " is not open");
-        }
+        Device device = getDevice(devName);
 
         try {
-            for (int i = 0; i < num; i++) {
-                writer.write((char) data[i]);
+            device.write(data, 0, num);
+            getDeviceStats(devName).recordWrite(num);
+
+            if (flushPolicy == FlushPolicy.WRITE
+                    || (flushPolicy == FlushPolicy.LINE && containsNewLine(data, num))) {
+                device.flush();
             }
-            writer.flush();
+            commitDeviceEvent(event, devName, "WD", num, true);
         } catch (IOException e) {
             throw new RuntimeException("Failed to write device: " + devName, e);
         }
     }
 
+    private Device getDevice(String devName) {
+        Device device = deviceManager.get(devName);
+        if (device == null) {
+            throw new IllegalStateException("Device " + devName + " is not open");
+        }
+        return device;
+    }
+
+    private void flush(String devName, Device device) {
+        try {
+            device.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to flush device: " + devName, e);
+        }
+    }
+
+    private static boolean containsNewLine(byte[] data, int num) {
+        for (int i = 0; i < num; i++) {
+            if (data[i] == '\n') return true;
+        }
+        return false;
+    }
+
     /**
      * 메모리의 특정 위치에서 원하는 개수만큼의 글자를 가져온다.
      *
@@ -282,22 +456,172 @@ public class ResourceManager {
     }
 
     public void writeByte(int address, byte data) {
-        memory[address & 0xFFFF] = data;
+        if (sharedMemory != null) sharedMemory.writeByte(address, data);
+        else memory[address & 0xFFFF] = data;
+        markDirty(address);
     }
 
     public int readWord(int address) {
+        if (sharedMemory != null) return sharedMemory.readWord(address);
         return ((memory[address & 0xFFFF] & 0xFF) << 16)
                 | ((memory[(address + 1) & 0xFFFF] & 0xFF) << 8)
                 | (memory[(address + 2) & 0xFFFF] & 0xFF);
     }
 
     public void writeWord(int address, int value) {
-        memory[address & 0xFFFF] = (byte) ((value >> 16) & 0xFF);
-        memory[(address + 1) & 0xFFFF] = (byte) ((value >> 8) & 0xFF);
-        memory[(address + 2) & 0xFFFF] = (byte) (value & 0xFF);
+        if (sharedMemory != null) {
+            sharedMemory.writeWord(address, value);
+        } else {
+            memory[address & 0xFFFF] = (byte) ((value >> 16) & 0xFF);
+            memory[(address + 1) & 0xFFFF] = (byte) ((value >> 8) & 0xFF);
+            memory[(address + 2) & 0xFFFF] = (byte) (value & 0xFF);
+        }
+        markDirty(address);
+        markDirty(address + 2);
+    }
+
+    /**
+     * 명령어가 데이터로 읽는 byte. heatmap 모드이면 읽기 횟수를 기록한다. 명령어 fetch에는 readByte를 사용한다.
+     */
+    public byte readDataByte(int address) {
+        if (heatmap != null) heatmap.recordRead(address, 1);
+        return readByte(address);
+    }
+
+    public int readDataWord(int address) {
+        if (heatmap != null) heatmap.recordRead(address, 3);
+        return readWord(address);
+    }
+
+    /**
+     * 명령어가 데이터로 쓰는 byte. heatmap 모드이면 쓰기 횟수를 기록한다. loader는 writeByte를 그대로 사용한다.
+     */
+    public void writeDataByte(int address, byte data) {
+        if (heatmap != null) heatmap.recordWrite(address, 1);
+        writeByte(address, data);
+    }
+
+    public void writeDataWord(int address, int value) {
+        if (heatmap != null) heatmap.recordWrite(address, 3);
+        writeWord(address, value);
+    }
+
+    /**
+     * word를 value로 바꾸고 원래 값을 돌려준다. 다른 CPU와 memory를 함께 쓰고 있으면 원자적으로 바꾼다. TS 명령어가
+     * 사용한다.
+     */
+    public int swapDataWord(int address, int value) {
+        if (heatmap != null) {
+            heatmap.recordRead(address, 3);
+            heatmap.recordWrite(address, 3);
+        }
+
+        if (sharedMemory == null) {
+            int old = readWord(address);
+            writeWord(address, value);
+            return old;
+        }
+
+        int old = sharedMemory.swapWord(address, value);
+        markDirty(address);
+        markDirty(address + 2);
+        return old;
+    }
+
+    /**
+     * 이 ResourceManager의 memory와 적재된 프로그램 정보를 함께 쓰고, 레지스터와 디바이스는 따로 가지는
+     * ResourceManager를 만든다. 여러 CPU가 같은 memory에서 실행할 때 CPU마다 하나씩 만든다. 처음 호출하면 이후의
+     * memory 쓰기는 SharedMemory를 거쳐 원자적으로 이루어진다.
+     */
+    public ResourceManager createCpuView() {
+        if (sharedMemory == null) sharedMemory = new SharedMemory(memory);
+
+        ResourceManager view = new ResourceManager();
+        view.memory = memory;
+        view.sharedMemory = sharedMemory;
+        view.symtabList = symtabList;
+        view.csInfos = csInfos;
+        view.addressIndex = addressIndex;
+        view.memStartAddr = memStartAddr;
+        view.progStartAddr = progStartAddr;
+        view.programs.addAll(programs);
+        view.flushPolicy = flushPolicy;
+        view.asyncDevices = asyncDevices;
+        return view;
+    }
+
+    /**
+     * address에서 명령어 하나를 실행했음을 heatmap에 기록한다.
+     */
+    public void recordExecute(int address) {
+        if (heatmap != null) heatmap.recordExec(address);
+    }
+
+    /**
+     * heatmap 모드를 켜거나 끈다. 켜면 이전에 기록한 횟수를 이어서 센다.
+     */
+    public void setHeatmapEnabled(boolean enabled) {
+        if (!enabled) heatmap = null;
+        else if (heatmap == null) heatmap = new MemoryHeatmap(memory.length);
+    }
+
+    private void markDirty(int address) {
+        int page = (address & 0xFFFF) >>> PAGE_SHIFT;
+        dirtyPages[page >>> 6] |= 1L << page;
+    }
+
+    /**
+     * 메모리 전체를 바뀐 것으로 표시한다. writeByte/writeWord를 거치지 않고 memory 배열에 직접 쓴 경우(loader 등)에
+     * 호출한다.
+     */
+    public void markAllDirty() {
+        Arrays.fill(dirtyPages, -1L);
+    }
+
+    /**
+     * 마지막 호출 이후 쓰기가 있었던 page의 bitmap을 into에 복사하고 표시를 지운다.
+     *
+     * @param into page bitmap을 받을 배열. 길이는 getDirtyPageWords() 이상이어야 한다
+     * @return 바뀐 page가 하나라도 있으면 true
+     */
+    public boolean takeDirtyPages(long[] into) {
+        long any = 0;
+        for (int i = 0; i < dirtyPages.length; i++) {
+            into[i] = dirtyPages[i];
+            any |= dirtyPages[i];
+            dirtyPages[i] = 0;
+        }
+        return any != 0;
+    }
+
+    public int getDirtyPageWords() {
+        return dirtyPages.length;
     }
 
     public void setProgramStart(int progStartAddr) {
         this.progStartAddr = progStartAddr;
     }
+
+    /**
+     * 다음에 load할 프로그램의 적재 시작 주소를 지정한다.
+     *
+     * @param address 적재 시작 주소
+     */
+    public void setLoadAddress(int address) {
+        if (address < 0 || address >= memory.length) {
+            throw new IllegalArgumentException(String.format("Load address out of range: %X", address));
+        }
+        this.memStartAddr = address;
+    }
+
+    /**
+     * 이미 적재된 프로그램들이 차지하는 구간 바로 뒤의 주소를 돌려준다.
+     */
+    public int nextFreeAddress() {
+        int next = 0;
+        for (LoadedProgram program : programs) {
+            next = Math.max(next, program.loadAddr + program.length);
+        }
+        return next;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * 여러 CPU가 함께 쓰는 메모리에 대한 원자적 접근. 전역 lock 없이 word(3byte) 단위의 읽기와 쓰기가 원자적으로
+ * 보이도록 한다.
+ *
+ * 메모리를 8byte 정렬된 long의 배열로 보고, word가 long 하나 안에 들어가면 그 long을 VarHandle로 읽고 CAS로
+ * 바꾼다. 8byte 경계에 걸친 word(주소 % 8이 6, 7인 경우)는 long 두 개에 나뉘므로, 주소로 고른 stripe lock을 잡고
+ * 읽고 쓴다. 같은 주소의 word는 항상 같은 방법으로 접근하므로 서로 섞여 보이지 않는다.
+ *
+ * 명령어 fetch와 LDCH는 byte 하나만 읽으므로 memory를 그대로 읽는다.
+ */
+public class SharedMemory {
+    static final int LOCK_STRIPES = 64;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    final byte[] memory;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public SharedMemory(byte[] memory) {
+        if (memory.length % Long.BYTES != 0) {
+            throw new IllegalArgumentException("Memory size must be a multiple of 8: " + memory.length);
+        }
+        this.memory = memory;
+        for (int i = 0; i < locks.length; i++) locks[i] = new Object();
+    }
+
+    public int readWord(int address) {
+        address &= 0xFFFF;
+        int offset = address & 7;
+        if (offset <= 5) {
+            long block = (long) LONGS.getVolatile(memory, address - offset);
+            return (int) (block >>> shift(offset)) & 0xFFFFFF;
+        }
+
+        synchronized (lockFor(address)) {
+            return ((memory[address] & 0xFF) << 16)
+                    | ((memory[(address + 1) & 0xFFFF] & 0xFF) << 8)
+                    | (memory[(address + 2) & 0xFFFF] & 0xFF);
+        }
+    }
+
+    public void writeWord(int address, int value) {
+        swapWord(address, value);
+    }
+
+    /**
+     * word를 value로 바꾸고 원래 값을 돌려준다. TS 명령어가 사용한다.
+     */
+    public int swapWord(int address, int value) {
+        address &= 0xFFFF;
+        value &= 0xFFFFFF;
+        int offset = address & 7;
+        if (offset <= 5) {
+            int base = address - offset;
+            int shift = shift(offset);
+            long mask = 0xFFFFFFL << shift;
+
+            long old;
+            do {
+                old = (long) LONGS.getVolatile(memory, base);
+            } while (!LONGS.compareAndSet(memory, base, old, (old & ~mask) | ((long) value << shift)));
+            return (int) (old >>> shift) & 0xFFFFFF;
+        }
+
+        synchronized (lockFor(address)) {
+            int old = 0;
+            for (int i = 0; i < 3; i++) {
+                old = (old << 8) | swapByte(address + i, (byte) (value >> (16 - i * 8)));
+            }
+            return old;
+        }
+    }
+
+    public void writeByte(int address, byte data) {
+        swapByte(address, data);
+    }
+
+    private int swapByte(int address, byte data) {
+        address &= 0xFFFF;
+        int base = address & ~7;
+        int shift = 56 - (address - base) * 8;
+        long mask = 0xFFL << shift;
+
+        long old;
+        do {
+            old = (long) LONGS.getVolatile(memory, base);
+        } while (!LONGS.compareAndSet(memory, base, old, (old & ~mask) | ((long) (data & 0xFF) << shift)));
+        return (int) (old >>> shift) & 0xFF;
+    }
+
+    /**
+     * @return long 안에서 offset부터 시작하는 3byte를 맨 아래로 내리는 shift 크기 (big-endian)
+     */
+    private static int shift(int offset) {
+        return 40 - offset * 8;
+    }
+
+    private Object lockFor(int address) {
+        return locks[(address >>> 3) & (LOCK_STRIPES - 1)];
+    }
+}
@@ -1,5 +1,14 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * SicLoader는 프로그램을 해석해서 메모리에 올리는 역할을 수행한다. 이 과정에서 linker의 역할 또한 수행한다.
@@ -15,6 +24,25 @@ public class SicLoader {
     int csAddr; // 현재 Control Section 시작 주소
     int progLength;
 
+    // 현재 load 중인 프로그램의 외부 symbol table(ESTAB)과 첫 명령어 주소
+    SymbolTable estab;
+    int progStartAddr;
+
+    // link가 끝난 이미지를 재사용하기 위한 캐시. null이면 항상 object code를 해석한다.
+    LoadCache cache;
+
+    // 가장 최근에 load한 control section들
+    ArrayList<ControlSection> lastSections = new ArrayList<>();
+
+    // loadAt으로 적재하는 중이면 true. 이미 적재된 프로그램과 겹치는 section은 기록하기 전에 거부한다.
+    private boolean rejectOverlap;
+
+    // 현재 load에서 읽은 record 종류별 개수. record 종류 문자로 index한다. JFR event로 보고한다.
+    private final int[] recordCounts = new int[128];
+
+    // 이보다 T record가 적은 section은 나누지 않고 한 번에 처리한다. T record 하나를 기록하는 데 약 90ns, ForkJoin
+    // 작업 하나를 나누는 데 약 0.3us가 들므로, 64개(약 6us, 코드 2KB 정도)면 나누는 비용이 5% 안쪽이다.
+    static final int PARALLEL_THRESHOLD = 64;
 
     public SicLoader(ResourceManager resourceManager) {
         // 필요하다면 초기화
@@ -33,58 +61,431 @@ public class SicLoader {
         this.rMgr = resourceManager;
     }
 
+    /**
+     * load 결과를 재사용할 캐시를 지정한다.
+     *
+     * @param cache 사용할 캐시. null이면 캐시를 사용하지 않는다
+     */
+    public void setCache(LoadCache cache) {
+        this.cache = cache;
+    }
+
     /**
      * object code를 읽어서 load과정을 수행한다. load한 데이터는 resourceManager가 관리하는 메모리에 올라가도록
      * 한다. load과정에서 만들어진 symbol table 등 자료구조 역시 resourceManager에 전달한다.
      *
-     * @param objectCode 읽어들인 파일
+     * 여러 파일을 넘기면 순서대로 이어서 적재하고 하나의 프로그램으로 link한다. 캐시가 지정되어 있고 같은 내용을
+     * 이전에 load한 적이 있으면 해석 없이 캐시의 이미지를 메모리로 복사한다.
+     *
+     * @param objectCodes 읽어들인 파일
      */
-    public void load(File objectCode) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(objectCode))) {
-            String line;
-            reader.mark(65536);
-            csAddr = rMgr.memStartAddr;
-
-            while ((line = reader.readLine()) != null) {
-                if (line.isEmpty()) continue;
-
-                char recordType = line.charAt(0);
-                line = line.substring(1);
+    public void load(File... objectCodes) {
+        SimulatorEvents.Load event = new SimulatorEvents.Load();
+        event.begin();
+
+        String key = null;
+        if (cache != null) {
+            try {
+                key = cache.key(objectCodes, rMgr.memStartAddr);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
 
-                switch (recordType) {
-                    case 'H' -> handleHeader(line);
-                    case 'D' -> handleDefine(line);
-                    case 'T' -> handleText(line);
-                    case 'E' -> handleEnd(line);
+            LoadCache.LinkedImage image = cache.get(key);
+            if (image != null) {
+                for (int i = 0; i < image.ranges.length; i++) {
+                    checkOverlap(image.csInfos.get(image.rangeStarts[i])[0], image.rangeStarts[i], image.ranges[i].length);
                 }
+                image.restore(rMgr, symbolTables);
+
+                estab = new SymbolTable();
+                int length = 0;
+                for (SymbolTable table : image.symbolTables) addExternalSymbols(table);
+                for (byte[] range : image.ranges) length += range.length;
+                registerProgram(image.csInfos.get(image.rangeStarts[0])[0], length, image.progStartAddr);
+                commitLoadEvent(event, image.csInfos.size(), true);
+                return;
             }
+        }
 
-            reader.reset();
-            csAddr = rMgr.memStartAddr;
-            progLength = 0;
-            while ((line = reader.readLine()) != null) {
-                if (line.isEmpty()) continue;
-                char recordType = line.charAt(0);
-                line = line.substring(1);
+        ArrayList<ControlSection> sections = beginLoad();
+        try {
+            for (File objectCode : objectCodes) {
+                if (BinaryObjectFile.isBinary(objectCode)) {
+                    readBinarySections(objectCode, sections);
+                    continue;
+                }
 
-                if (recordType == 'H') handleHeader(line);
-                if (recordType == 'M') handleModify(line);
+                try (BufferedReader reader = new BufferedReader(new FileReader(objectCode))) {
+                    readSections(reader, sections);
+                }
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            awaitSections(sections);
         }
+        link(sections);
 
-
+        if (key != null) {
+            cache.put(key, LoadCache.LinkedImage.capture(rMgr, sections));
+        }
+        commitLoadEvent(event, sections.size(), false);
     };
 
+    /**
+     * 지정한 주소에 프로그램을 적재한다. 이미 적재된 다른 프로그램은 그대로 두므로, 서로 다른 주소를 주면 여러
+     * 프로그램을 하나의 메모리에 함께 올려둘 수 있다.
+     *
+     * @param address     적재 시작 주소
+     * @param objectCodes 읽어들인 파일
+     * @return 적재된 프로그램의 정보
+     * @throws IllegalArgumentException 파일에 control section이 하나도 없거나, 이미 적재된 프로그램과 겹치는 경우.
+     *                                  겹치는 section은 메모리에 기록하기 전에 거부하므로 기존 프로그램은 그대로 남는다
+     */
+    public LoadedProgram loadAt(int address, File... objectCodes) {
+        int loaded = rMgr.programs.size();
+        ArrayList<ControlSection> previous = lastSections;
+        rMgr.setLoadAddress(address);
+        rejectOverlap = true;
+        try {
+            load(objectCodes);
+        } catch (IllegalArgumentException e) {
+            // 겹치기 전에 읽은 section의 정보는 등록되지 않은 프로그램의 것이므로 지운다. 캐시의 이미지는 복사하기 전에
+            // 거부하므로 지울 것이 없다.
+            if (lastSections != previous) {
+                for (ControlSection section : lastSections) rMgr.csInfos.remove(section.csAddr);
+            }
+            throw e;
+        } finally {
+            rejectOverlap = false;
+        }
+
+        if (rMgr.programs.size() == loaded) {
+            throw new IllegalArgumentException("No control section in " + Arrays.toString(objectCodes));
+        }
+        return rMgr.programs.get(loaded);
+    }
+
+    /**
+     * 이미 적재된 프로그램들 바로 뒤의 빈 주소에 프로그램을 적재한다.
+     *
+     * @param objectCodes 읽어들인 파일
+     * @return 적재된 프로그램의 정보
+     */
+    public LoadedProgram loadNext(File... objectCodes) {
+        return loadAt(rMgr.nextFreeAddress(), objectCodes);
+    }
+
+    /**
+     * object code를 stream으로 한 번만 읽으면서 load과정을 수행한다.
+     *
+     * H record를 읽는 즉시 section의 주소가 정해지므로, E record까지 읽은 section은 ForkJoinPool에서 D, T record를
+     * 해석하고 그동안 다음 section을 계속 읽는다. 각 section은 서로 겹치지 않는 메모리 구간에 기록되며, D record도
+     * section마다 따로 가진 SymbolTable에 기록되므로 동시에 처리해도 안전하다. M record는 다른 section의 외부 symbol을
+     * 참조할 수 있으므로 section별로 모아두었다가, 모든 section의 해석이 끝난 뒤 적용한다. 입력의 크기에는 제한이 없다.
+     *
+     * @param readers object code를 읽어들일 stream. 여러 개를 넘기면 순서대로 이어서 link한다
+     */
+    public void load(BufferedReader... readers) throws IOException {
+        SimulatorEvents.Load event = new SimulatorEvents.Load();
+        event.begin();
+
+        ArrayList<ControlSection> sections = beginLoad();
+        try {
+            for (BufferedReader reader : readers) {
+                readSections(reader, sections);
+            }
+        } finally {
+            awaitSections(sections);
+        }
+        link(sections);
+        commitLoadEvent(event, sections.size(), false);
+    }
+
+    /**
+     * 끝난 load를 JFR event로 기록한다. 캐시를 사용하지 않았으면 record 종류별 개수도 기록한다.
+     */
+    private void commitLoadEvent(SimulatorEvents.Load event, int sections, boolean cached) {
+        event.end();
+        if (!event.shouldCommit() || rMgr.programs.isEmpty()) return;
+
+        LoadedProgram program = rMgr.programs.get(rMgr.programs.size() - 1);
+        event.program = program.name;
+        event.loadAddress = program.loadAddr;
+        event.length = program.length;
+        event.sections = sections;
+        event.cached = cached;
+        event.commit();
+
+        if (cached) return;
+        for (char type = 0; type < recordCounts.length; type++) {
+            if (recordCounts[type] == 0) continue;
+
+            SimulatorEvents.LoadRecords records = new SimulatorEvents.LoadRecords();
+            records.program = program.name;
+            records.recordType = type;
+            records.count = recordCounts[type];
+            records.commit();
+        }
+    }
+
+    private ArrayList<ControlSection> beginLoad() {
+        csAddr = rMgr.memStartAddr;
+        progLength = 0;
+        estab = new SymbolTable();
+        progStartAddr = -1;
+        lastSections = new ArrayList<>();
+        Arrays.fill(recordCounts, 0);
+        return lastSections;
+    }
+
+    /**
+     * 해석 중인 section이 모두 끝날 때까지 기다린다. 예외가 발생한 경우에도 이미 시작한 작업이 끝난 뒤에 돌아간다.
+     */
+    private void awaitSections(ArrayList<ControlSection> sections) {
+        for (ControlSection section : sections) {
+            if (section.task != null) section.task.quietlyJoin();
+        }
+    }
+
+    /**
+     * 모든 section의 해석이 끝난 뒤 각 section의 symbol로 ESTAB을 만들고 M record를 적용한다. 같은 외부 symbol이
+     * 두 번 정의되어 있으면 예외를 던진다.
+     */
+    private void link(ArrayList<ControlSection> sections) {
+        for (ControlSection section : sections) {
+            if (section.task != null) section.task.join();
+        }
+        if (sections.isEmpty()) return;
+
+        for (ControlSection section : sections) {
+            addExternalSymbols(section.symbolTable);
+            for (String line : section.textRecords) markText(section.csAddr + parseHex(line, 1, 7), parseHex(line, 7, 9));
+        }
+
+        if (sections.size() > 1) {
+            ForkJoinTask.invokeAll(sections.stream()
+                    .map(section -> ForkJoinTask.adapt(() -> applyModify(section)))
+                    .toList());
+        } else {
+            sections.forEach(this::applyModify);
+        }
+
+        String progName = rMgr.csInfos.get(sections.get(0).csAddr)[0];
+        registerProgram(progName, csAddr + progLength - rMgr.memStartAddr, progStartAddr);
+    }
+
+    /**
+     * T record가 기록한 주소 구간을 ResourceManager.textAddresses에 표시한다. handleText처럼 메모리 끝을 넘으면
+     * 0번지부터 이어서 표시한다.
+     */
+    private void markText(int start, int length) {
+        int size = rMgr.memory.length;
+        start &= 0xFFFF;
+        while (length > 0) {
+            int count = Math.min(length, size - start);
+            rMgr.textAddresses.set(start, start + count);
+            start = 0;
+            length -= count;
+        }
+    }
+
+    /**
+     * section 하나의 symbol을 ESTAB에 추가한다. 같은 외부 symbol이 이미 있으면 예외를 던진다.
+     */
+    private void addExternalSymbols(SymbolTable table) {
+        try {
+            estab.putAll(table);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Duplicate external symbol: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * load가 끝난 프로그램을 ResourceManager에 등록하고 시작 주소를 설정한다.
+     *
+     * @param startAddr 첫 명령어의 주소. 없으면 -1이며 적재 시작 주소를 사용한다
+     */
+    private void registerProgram(String progName, int length, int startAddr) {
+        if (startAddr < 0) startAddr = rMgr.memStartAddr;
+
+        rMgr.setProgramStart(startAddr);
+        rMgr.programs.add(new LoadedProgram(progName, rMgr.memStartAddr, length, startAddr, estab));
+        rMgr.addressIndex = AddressIndex.build(rMgr);
+        // T record와 cache 이미지는 memory 배열에 직접 복사하므로 화면에는 메모리 전체가 바뀐 것으로 알린다.
+        rMgr.markAllDirty();
+    }
+
+    /**
+     * stream 하나에 들어있는 control section들을 읽는다. E record까지 읽은 section은 바로 해석을 시작한다.
+     */
+    private void readSections(BufferedReader reader, ArrayList<ControlSection> sections) throws IOException {
+        String line;
+        ControlSection section = null;
+
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) continue;
+
+            char recordType = line.charAt(0);
+            if (recordType < recordCounts.length) recordCounts[recordType]++;
+
+            // 각 handler는 record 종류 문자를 포함한 line 전체를 받아 열 위치로 필드를 읽는다.
+            switch (recordType) {
+                case 'H' -> {
+                    handleHeader(line);
+                    section = new ControlSection(csAddr, currSymbolTable);
+                    sections.add(section);
+                }
+                case 'D' -> requireSection(section, line).defineRecords.add(line);
+                case 'T' -> requireSection(section, line).textRecords.add(line);
+                case 'M' -> requireSection(section, line).modifications.add(parseModify(line));
+                case 'E' -> {
+                    handleEnd(line);
+                    decode(requireSection(section, line));
+                    section = null;
+                }
+            }
+        }
+
+        // E record 없이 끝난 section도 해석한다.
+        if (section != null) {
+            symbolTables.add(section.symbolTable);
+            decode(section);
+        }
+    }
+
+    /**
+     * binary object 파일을 memory-map해서 읽는다. T record는 buffer에서 메모리로 한 번에 복사하고, D record는 바로
+     * symbol table에 넣는다. M record는 읽은 필드를 그대로 모아두었다가 link에서 적용한다.
+     */
+    private void readBinarySections(File objectCode, ArrayList<ControlSection> sections) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(objectCode.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        buffer.position(BinaryObjectFile.MAGIC.length);
+        int version = buffer.getShort();
+        if (version != BinaryObjectFile.VERSION) {
+            throw new IOException("Unsupported binary object version: " + version);
+        }
+
+        byte[] memory = rMgr.memory;
+        ControlSection section = null;
+
+        while (buffer.hasRemaining()) {
+            char recordType = (char) buffer.get();
+            if (recordType < recordCounts.length) recordCounts[recordType]++;
+
+            switch (recordType) {
+                case 'H' -> {
+                    String progName = readName(buffer);
+                    buffer.getInt(); // 시작 주소는 항상 section 시작 주소를 기준으로 한다.
+                    beginSection(progName, buffer.getInt());
+                    section = new ControlSection(csAddr, currSymbolTable);
+                    sections.add(section);
+                }
+                case 'D' -> {
+                    ControlSection current = requireSection(section, "D");
+                    int count = Short.toUnsignedInt(buffer.getShort());
+                    for (int i = 0; i < count; i++) {
+                        String symbol = readName(buffer);
+                        current.symbolTable.putSymbol(symbol, buffer.getInt() + current.csAddr);
+                    }
+                }
+                case 'R' -> {
+                    int count = Short.toUnsignedInt(buffer.getShort());
+                    for (int i = 0; i < count; i++) readName(buffer);
+                }
+                case 'T' -> {
+                    int start = (requireSection(section, "T").csAddr + buffer.getInt()) & 0xFFFF;
+                    int length = buffer.getInt();
+                    markText(start, length);
+
+                    // 메모리 끝을 넘어가면 나머지는 0번지부터 이어서 기록한다.
+                    while (length > 0) {
+                        int count = Math.min(length, memory.length - start);
+                        buffer.get(memory, start, count);
+                        start = 0;
+                        length -= count;
+                    }
+                }
+                case 'M' -> {
+                    int offset = buffer.getInt();
+                    int halfBytes = Byte.toUnsignedInt(buffer.get());
+                    char sign = (char) buffer.get();
+                    String symbol = readName(buffer);
+                    requireSection(section, "M").modifications.add(new Modification(offset, halfBytes, sign, symbol));
+                }
+                case 'E' -> {
+                    boolean hasStart = buffer.get() != 0;
+                    int start = buffer.getInt();
+                    requireSection(section, "E");
+                    endSection(hasStart ? start : -1);
+                    section = null;
+                }
+                default -> throw new IOException("Unknown binary record type: " + (int) recordType);
+            }
+        }
+
+        if (section != null) symbolTables.add(section.symbolTable);
+    }
+
+    private static String readName(ByteBuffer buffer) {
+        byte[] name = new byte[Byte.toUnsignedInt(buffer.get())];
+        buffer.get(name);
+        return new String(name, StandardCharsets.ISO_8859_1);
+    }
+
+    private ControlSection requireSection(ControlSection section, String record) {
+        if (section == null) {
+            throw new IllegalStateException("Record outside of a control section: " + record);
+        }
+        return section;
+    }
+
+    /**
+     * section의 D, T record를 해석한다. record가 적은 section은 바로 처리하고, 나머지는 ForkJoinPool에 맡긴다.
+     */
+    private void decode(ControlSection section) {
+        if (section.textRecords.size() < PARALLEL_THRESHOLD) {
+            decodeSection(section);
+        } else {
+            section.task = ForkJoinPool.commonPool().submit(() -> decodeSection(section));
+        }
+    }
+
+    private void decodeSection(ControlSection section) {
+        for (String line : section.defineRecords) {
+            handleDefine(section, line);
+        }
+        new TextTask(section, 0, section.textRecords.size()).invoke();
+    }
+
+    private void applyModify(ControlSection section) {
+        for (Modification modification : section.modifications) {
+            handleModify(section, modification);
+        }
+    }
+
     private void handleHeader(String line) {
-        String[] tokens = line.trim().split("\\s+");
-        String progName = tokens[0];
-        String startAndLength = tokens[1];
+        // 프로그램 이름은 6글자로 맞춰져 있지 않을 수 있으므로 마지막 12글자를 시작 주소와 길이로 읽는다.
+        int end = line.length();
+        while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) end--;
+        if (end < 13) {
+            throw new NumberFormatException("Header record too short: " + line);
+        }
+        beginSection(line.substring(1, end - 12).trim(), parseHex(line, end - 6, end));
+    }
 
+    /**
+     * 새 control section을 시작한다. 이전 section 바로 뒤에 주소를 배정하고 symbol table과 csInfos를 만든다.
+     */
+    private void beginSection(String progName, int length) {
         csAddr += progLength;
-        progLength = Integer.parseInt(startAndLength.substring(6, 12), 16);
-
+        progLength = length;
+        checkOverlap(progName, csAddr, length);
 
         currSymbolTable = new SymbolTable();
         currSymbolTable.putSymbol(progName, csAddr);
@@ -97,62 +498,201 @@ public class SicLoader {
         rMgr.csInfos.put(csAddr, csInfo);
     }
 
-    private void handleDefine(String line) {
-        for (int i = 0; i < line.length(); i += 12) {
+    /**
+     * loadAt으로 적재하는 중이면 [start, start + length) 구간이 이미 적재된 프로그램과 겹치는지 확인한다.
+     *
+     * @throws IllegalArgumentException 겹치는 프로그램이 있는 경우
+     */
+    private void checkOverlap(String progName, int start, int length) {
+        if (!rejectOverlap) return;
+
+        for (LoadedProgram program : rMgr.programs) {
+            if (start < program.loadAddr + program.length && program.loadAddr < start + length) {
+                throw new IllegalArgumentException(String.format("%s at %06X-%06X overlaps %s",
+                        progName, start, start + length, program));
+            }
+        }
+    }
+
+    private void handleDefine(ControlSection section, String line) {
+        for (int i = 1; i < line.length(); i += 12) {
             if (i + 12 > line.length()) break;
 
             String symbol = line.substring(i, i + 6).trim();
-            int addr = Integer.parseInt(line.substring(i + 6, i + 12), 16) + csAddr;
-            currSymbolTable.putSymbol(symbol, addr);
+            int addr = parseHex(line, i + 6, i + 12) + section.csAddr;
+            section.symbolTable.putSymbol(symbol, addr);
         }
     }
 
-    private void handleText(String line) {
-        int start = csAddr;
-        start += Integer.parseInt(line.substring(0, 6), 16);
+    /**
+     * T record의 object code를 문자열을 만들지 않고 바로 메모리에 기록한다.
+     */
+    private void handleText(ControlSection section, String line) {
+        int start = section.csAddr + parseHex(line, 1, 7);
+        int length = parseHex(line, 7, 9);
 
-        int length = Integer.parseInt(line.substring(6, 8), 16);
-        String objectCodes = line.substring(8);
+        if (9 + length * 2 > line.length()) {
+            throw new NumberFormatException("Text record too short: " + line);
+        }
 
-        for (int i = 0; i < length; i++) {
-            int val = Integer.parseInt(objectCodes.substring(i * 2, i * 2 + 2), 16);
-            rMgr.writeByte(start + i, (byte) val);
+        byte[] memory = rMgr.memory;
+        for (int i = 0, pos = 9; i < length; i++, pos += 2) {
+            int hi = nibble(line.charAt(pos));
+            int lo = nibble(line.charAt(pos + 1));
+            if ((hi | lo) < 0) {
+                throw new NumberFormatException("Invalid hex digit in text record: " + line);
+            }
+            memory[(start + i) & 0xFFFF] = (byte) ((hi << 4) | lo);
         }
     }
 
-    private void handleModify(String line) {
-        int addr = Integer.parseInt(line.substring(0, 6), 16) + csAddr;
-        int halfBytes = Integer.parseInt(line.substring(6, 8), 16);
-        int bytes = (halfBytes + 1) / 2;
+    /**
+     * M record의 필드를 읽는다. 적용은 모든 section의 symbol이 ESTAB에 모인 뒤에 한다.
+     */
+    private static Modification parseModify(String line) {
+        if (line.length() < 10) {
+            throw new NumberFormatException("Modification record too short: " + line);
+        }
+        return new Modification(parseHex(line, 1, 7), parseHex(line, 7, 9), line.charAt(9), line.substring(10));
+    }
 
-        char sign = line.charAt(8);
-        String symbol = line.substring(9);
+    private void handleModify(ControlSection section, Modification modification) {
+        int addr = modification.offset + section.csAddr;
+        int bytes = (modification.halfBytes + 1) / 2;
 
-        int symAddr = -1;
-        for (SymbolTable s : symbolTables) {
-            symAddr = s.search(symbol);
-            if (symAddr != -1) break;
-        }
+        int symAddr = estab.search(modification.symbol);
         if (symAddr == -1) {
-            throw new RuntimeException("Symbol " + symbol + " not found");
+            throw new RuntimeException("Symbol " + modification.symbol + " not found");
         }
 
         byte[] originalBytes = rMgr.getMemory(addr, bytes);
         int originalVal = rMgr.bytesToInt(originalBytes);
 
-        int newVal = sign == '+' ? originalVal + symAddr : originalVal - symAddr;
+        int newVal = modification.sign == '+' ? originalVal + symAddr : originalVal - symAddr;
         byte[] newBytes = rMgr.intToBytes(newVal);
 
         rMgr.setMemory(addr, newBytes, bytes);
     }
 
     private void handleEnd(String line) {
-        if (line.isEmpty()) rMgr.setProgramStart(csAddr);
-        else {
-            int startAddr = Integer.parseInt(line.substring(1).trim(), 16) + rMgr.memStartAddr;
-            rMgr.setProgramStart(startAddr);
+        if (line.trim().length() <= 1) endSection(-1);
+        else endSection(parseHex(line, 1, Math.min(7, line.length())));
+    }
+
+    /**
+     * control section을 끝낸다. 프로그램의 첫 명령어 주소는 주소가 적힌 첫 번째 E record를 따른다.
+     *
+     * @param startAddr E record에 적힌 첫 명령어 주소. 없으면 -1
+     */
+    private void endSection(int startAddr) {
+        if (startAddr >= 0 && progStartAddr < 0) {
+            progStartAddr = startAddr + rMgr.memStartAddr;
         }
 
         symbolTables.add(currSymbolTable);
     }
+
+    /**
+     * line의 [from, to) 구간에 있는 16진수 문자열을 정수로 변환한다. 중간 문자열을 만들지 않고 HEX_DIGITS 표로
+     * 한 글자씩 변환한다.
+     *
+     * @return 변환된 값
+     * @throws NumberFormatException 구간이 line을 벗어나거나 16진수가 아닌 문자가 있을 때
+     */
+    static int parseHex(CharSequence line, int from, int to) {
+        if (to > line.length()) {
+            throw new NumberFormatException("Record too short: " + line);
+        }
+
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = nibble(line.charAt(i));
+            if (digit < 0) {
+                throw new NumberFormatException("Invalid hex digit '" + line.charAt(i) + "' in: " + line);
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * 16진수 문자 하나의 값을 돌려준다. 16진수가 아니면 -1.
+     */
+    static int nibble(char c) {
+        return c < 128 ? HEX_DIGITS[c] : -1;
+    }
+
+    private static final byte[] HEX_DIGITS = new byte[128];
+    static {
+        Arrays.fill(HEX_DIGITS, (byte) -1);
+        for (int i = 0; i < 10; i++) HEX_DIGITS['0' + i] = (byte) i;
+        for (int i = 0; i < 6; i++) {
+            HEX_DIGITS['A' + i] = (byte) (10 + i);
+            HEX_DIGITS['a' + i] = (byte) (10 + i);
+        }
+    }
+
+    /**
+     * 읽어들인 control section 하나. H record에서 정해진 시작 주소와 symbol table, 그리고 아직 해석하지 않은
+     * D, T record와 아직 적용하지 않은 M record를 가진다.
+     */
+    static class ControlSection {
+        final int csAddr;
+        final SymbolTable symbolTable;
+        final ArrayList<String> defineRecords = new ArrayList<>();
+        final ArrayList<String> textRecords = new ArrayList<>();
+        final ArrayList<Modification> modifications = new ArrayList<>();
+        ForkJoinTask<?> task;
+
+        ControlSection(int csAddr, SymbolTable symbolTable) {
+            this.csAddr = csAddr;
+            this.symbolTable = symbolTable;
+        }
+    }
+
+    /**
+     * 아직 적용하지 않은 M record 하나. offset은 section 시작 주소로부터의 위치이다.
+     */
+    static final class Modification {
+        final int offset;
+        final int halfBytes;
+        final char sign;
+        final String symbol;
+
+        Modification(int offset, int halfBytes, char sign, String symbol) {
+            this.offset = offset;
+            this.halfBytes = halfBytes;
+            this.sign = sign;
+            this.symbol = symbol;
+        }
+    }
+
+    /**
+     * section의 T record들을 나누어 병렬로 메모리에 기록한다. 한 section 안의 T record는 서로 다른 주소를 채우므로
+     * 순서에 상관없이 기록해도 결과가 같다.
+     */
+    private class TextTask extends RecursiveAction {
+        final ControlSection section;
+        final int from;
+        final int to;
+
+        TextTask(ControlSection section, int from, int to) {
+            this.section = section;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    handleText(section, section.textRecords.get(i));
+                }
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new TextTask(section, from, mid), new TextTask(section, mid, to));
+        }
+    }
 }
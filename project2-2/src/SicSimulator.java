@@ -1,5 +1,6 @@
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * 시뮬레이터로서의 작업을 담당한다. VisualSimulator에서 사용자의 요청을 받으면 이에 따라 ResourceManager에 접근하여
@@ -20,6 +21,8 @@ public class SicSimulator {
     InstLuncher instLuncher;
     boolean running = false;
     ArrayList<String> logs;
+    // false이면 명령어 로그를 남기지 않는다. 로그를 보지 않는 일괄 실행에서 끈다.
+    boolean logging = true;
 
     int curCs;
     int targetAddr;
@@ -30,9 +33,30 @@ public class SicSimulator {
     boolean useDev;
     String curDev;
 
+    // call stack sampling profiler. null이면 측정하지 않는다.
+    StackProfiler profiler;
+
+    // 실행한 명령어 주소의 coverage bitmap. null이면 기록하지 않는다.
+    CoverageMap coverage;
+
+    // 여러 프로그램을 번갈아 실행하는 scheduler. null이면 적재된 프로그램 하나만 실행한다.
+    ProgramScheduler scheduler;
+    // 실행을 시작한 주소. scheduler가 있으면 첫 프로그램의 시작 주소이다.
+    int entryAddr;
+
+    // load 이후 수행한 명령어 수. JMX로는 monitor를 통해 묶어서 내보낸다.
+    long instructionCount;
+    final SimulatorMonitor monitor;
+
+    // JFR event. 실행 전체를 나타내는 event와, 켜져 있을 때만 만드는 명령어 묶음 event
+    private SimulatorEvents.Run runEvent;
+    private SimulatorEvents.InstructionBatch batchEvent;
+    private int batchRemaining;
+
     public SicSimulator(ResourceManager resourceManager) {
         this.rMgr = resourceManager;
         this.instLuncher = new InstLuncher(rMgr);
+        this.monitor = new SimulatorMonitor(rMgr);
     }
 
     /**
@@ -40,11 +64,55 @@ public class SicSimulator {
      * SicLoader에서 수행하도록 한다.
      */
     public void load(File program) {
+        // 이전 실행에서 쓰던 디바이스를 닫고, 설정된 디바이스는 처음부터 다시 쓸 수 있게 한다.
+        rMgr.resetDevices();
+        // 같은 ResourceManager로 다시 실행할 때 이전 실행의 레지스터 값이 남지 않도록 지운다.
+        Arrays.fill(rMgr.register, 0);
+        rMgr.register_F = 0.0;
         this.running = true;
-        rMgr.setRegister("PC", rMgr.memStartAddr);
+        // scheduler가 있으면 마지막으로 적재한 프로그램이 아니라 첫 프로그램부터 실행한다.
+        entryAddr = scheduler != null ? scheduler.entry() : rMgr.progStartAddr;
+        rMgr.setRegister("PC", entryAddr);
         logs = new ArrayList<>();
-        curCs = rMgr.memStartAddr;
+        int cs = rMgr.addressIndex.sectionAt(entryAddr);
+        curCs = cs >= 0 ? cs : rMgr.memStartAddr;
         targetAddr = 0;
+        if (profiler != null) profiler.reset(entryAddr);
+        if (scheduler != null) scheduler.start(profiler);
+
+        instructionCount = 0;
+        monitor.reset(entryAddr);
+        runEvent = new SimulatorEvents.Run();
+        runEvent.begin();
+        startBatch(entryAddr);
+    }
+
+    /**
+     * 여러 프로그램을 번갈아 실행할 scheduler를 연결한다. null을 넘기면 적재된 프로그램 하나만 실행한다.
+     */
+    public void setScheduler(ProgramScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 명령어 로그를 남길지 지정한다.
+     */
+    public void setLogging(boolean logging) {
+        this.logging = logging;
+    }
+
+    /**
+     * 실행한 명령어 주소를 기록할 coverage bitmap을 연결한다. null을 넘기면 기록하지 않는다.
+     */
+    public void setCoverage(CoverageMap coverage) {
+        this.coverage = coverage;
+    }
+
+    /**
+     * call stack profiler를 연결한다. null을 넘기면 측정하지 않는다.
+     */
+    public void setProfiler(StackProfiler profiler) {
+        this.profiler = profiler;
     }
 
     /**
@@ -56,16 +124,12 @@ public class SicSimulator {
             return;
         }
 
-        for (Integer key : rMgr.csInfos.keySet()) {
-            if (key <= rMgr.getRegister("PC")) {
-                curCs = key;
-            } else if (key > rMgr.getRegister("PC")) {
-                break;
-            }
-        }
+        int cs = rMgr.addressIndex.sectionAt(rMgr.getRegister("PC"));
+        if (cs >= 0) curCs = cs;
 
         instLuncher.executeNextInstruction();
         targetAddr = instLuncher.targetAddr;
+        if (coverage != null) coverage.mark(instLuncher.prevPC);
 
         prevAddr = instLuncher.prevPC;
         prevLen = instLuncher.prevLen;
@@ -74,28 +138,111 @@ public class SicSimulator {
         curDev = instLuncher.curDev;
 
         addLog(instLuncher.mnemonic);
+
+        int pc = rMgr.getRegister("PC");
+        if (profiler != null) profiler.step(instLuncher.mnemonic, pc);
+
+        instructionCount++;
+        if ((instructionCount & (SimulatorMonitor.PUBLISH_INTERVAL - 1)) == 0) {
+            monitor.publish(instructionCount, pc);
+        }
+        if (--batchRemaining == 0) {
+            commitBatch(pc);
+            startBatch(pc);
+        }
+
+        boolean exited = pc == 0 || pc >= rMgr.memory.length;
+        if (scheduler != null) exited = scheduler.step(instLuncher.mnemonic, exited);
+        if (exited) {
+            halt();
+        }
     }
 
     /**
-     * 남은 모든 instruction이 수행된 모습을 보인다.
+     * 남은 모든 instruction이 수행된 모습을 보인다. JMX로 pause되면 resume될 때까지 기다리고, stop되면 프로그램을
+     * 끝낸다. 요청은 명령어 SimulatorMonitor.PUBLISH_INTERVAL개마다 확인한다.
      */
     public void allStep() {
-
         while (running) {
-            oneStep();
-
-            int pc = rMgr.getRegister("PC");
-            if (pc == 0 || pc >= rMgr.memory.length) {
-                running = false;
+            if (!monitor.awaitRunnable()) {
+                stop();
+                break;
             }
+            for (int i = 0; i < SimulatorMonitor.PUBLISH_INTERVAL && running; i++) {
+                oneStep();
+            }
+        }
+    }
+
+    /**
+     * 실행 중인 프로그램을 끝낸다.
+     */
+    public void stop() {
+        if (running) halt();
+    }
+
+    /**
+     * 이 시뮬레이터의 MBean을 platform MBean server에 등록한다. MBean server를 처음 쓸 때는 시작 비용이 있으므로
+     * 필요한 경우에만 호출한다.
+     */
+    public void registerMBean() {
+        monitor.register();
+    }
+
+    public void unregisterMBean() {
+        monitor.unregister();
+    }
+
+    /**
+     * 프로그램이 끝났음을 표시하고 출력 디바이스의 버퍼를 비운다.
+     */
+    private void halt() {
+        running = false;
+        rMgr.flushDevice();
+
+        int pc = rMgr.getRegister("PC");
+        monitor.publishHalt(instructionCount, pc);
+        commitBatch(pc);
+        runEvent.end();
+        if (runEvent.shouldCommit()) {
+            runEvent.program = rMgr.addressIndex.sectionNameAt(entryAddr);
+            runEvent.instructions = instructionCount;
+            runEvent.finalPC = pc;
+            runEvent.commit();
+        }
+    }
+
+    /**
+     * 다음 명령어 묶음을 시작한다. InstructionBatch event가 꺼져 있으면 event를 만들지 않는다.
+     */
+    private void startBatch(int pc) {
+        batchRemaining = SimulatorEvents.BATCH_SIZE;
+        batchEvent = null;
+        if (!SimulatorEvents.BATCH_TYPE.isEnabled()) return;
+
+        batchEvent = new SimulatorEvents.InstructionBatch();
+        batchEvent.startPC = pc;
+        batchEvent.begin();
+    }
+
+    private void commitBatch(int pc) {
+        if (batchEvent == null || batchRemaining == SimulatorEvents.BATCH_SIZE) return;
+
+        batchEvent.end();
+        if (batchEvent.shouldCommit()) {
+            batchEvent.instructions = SimulatorEvents.BATCH_SIZE - batchRemaining;
+            batchEvent.endPC = pc;
+            batchEvent.section = rMgr.addressIndex.sectionNameAt(batchEvent.startPC);
+            batchEvent.commit();
         }
+        batchEvent = null;
     }
 
     /**
      * 각 단계를 수행할 때 마다 관련된 기록을 남기도록 한다.
      */
     public void addLog(String log) {
-        if (log.isEmpty()) return;
+        if (!logging || log.isEmpty()) return;
         logs.add(log + "\n");
     }
 
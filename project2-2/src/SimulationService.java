@@ -0,0 +1,241 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * localhost에서 동작하는 시뮬레이션 HTTP service. object program을 받아서 실행하고 레지스터, 디바이스 출력, 통계를
+ * 돌려준다. ResourceManager, SicLoader, SicSimulator 묶음을 미리 만들어 pool에 두고, 작업이 끝날 때마다 메모리와
+ * 레지스터를 한 번에 지워서 다시 쓰므로 작업 시간은 대부분 guest 프로그램의 실행 시간이다.
+ *
+ * 사용법 : java SimulationService [-n pool크기] [-p port]
+ *
+ * POST /run 의 body는 text 형식의 object program이며, query string으로 다음을 지정한다.
+ * 디바이스번호=입력   - 그 디바이스를 입력 데이터를 가진 MemoryDevice로 연결한다. (예: F1=HELLO&05=)
+ * max=N              - 최대 명령어 수. 넘으면 실행을 멈추고 status=limit을 돌려준다.
+ * log=1              - 수행한 명령어 로그도 돌려준다.
+ *
+ * 응답은 "이름=값" 형태의 줄로 이루어진다. 디바이스 출력은 URL encoding해서 "dev.번호=" 줄로 보낸다. query로
+ * 지정하지 않은 디바이스 번호도 host 파일 대신 작업마다 새로 만든 빈 MemoryDevice를 사용하므로, 동시에 실행되는
+ * 작업끼리 파일을 함께 쓰지 않는다. object program을 하나도 적재하지 못하면 400으로 응답한다.
+ */
+public class SimulationService {
+    static final int DEFAULT_PORT = 8642;
+    static final long DEFAULT_MAX_STEPS = 100_000_000L;
+
+    private static final String[] REGISTER_NAMES = {"A", "X", "L", "B", "S", "T", "F", "", "PC", "SW"};
+
+    private final BlockingQueue<Machine> pool;
+    private final int poolSize;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * 작업 하나를 실행하는 시뮬레이터 묶음. pool에 돌아갈 때 reset된다.
+     */
+    static final class Machine {
+        final ResourceManager rMgr = new ResourceManager();
+        final SicLoader sicLoader = new SicLoader(rMgr);
+        final SicSimulator sicSimulator = new SicSimulator(rMgr);
+
+        Machine() {
+            rMgr.setDefaultDevice(devName -> new MemoryDevice());
+        }
+
+        /**
+         * 디바이스를 닫고 메모리, 레지스터, 적재 정보를 지워서 다음 작업을 받을 수 있게 한다.
+         */
+        void reset() {
+            rMgr.closeDevice();
+            rMgr.deviceConfig.clear();
+            rMgr.initializeResource();
+            sicLoader.symbolTables.clear();
+            sicSimulator.setLogging(false);
+            sicSimulator.logs = null;
+        }
+    }
+
+    public SimulationService(int poolSize) {
+        if (poolSize <= 0) throw new IllegalArgumentException("Pool size must be positive: " + poolSize);
+        this.poolSize = poolSize;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            Machine machine = new Machine();
+            machine.reset();
+            pool.add(machine);
+        }
+    }
+
+    /**
+     * localhost의 port에서 요청을 받기 시작한다. 동시에 pool 크기만큼의 작업을 처리한다.
+     */
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newFixedThreadPool(poolSize);
+        server.setExecutor(executor);
+        server.createContext("/run", this::handle);
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    /**
+     * @return 실제로 열린 port. start에 0을 넘긴 경우에 사용한다
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                reply(exchange, 405, "error=POST only\n");
+                return;
+            }
+
+            byte[] program = exchange.getRequestBody().readAllBytes();
+            String result;
+            try {
+                result = run(program, exchange.getRequestURI().getRawQuery());
+            } catch (RuntimeException e) {
+                reply(exchange, 400, "status=error\nerror=" + encode(String.valueOf(e.getMessage())) + "\n");
+                return;
+            }
+            reply(exchange, 200, result);
+        }
+    }
+
+    /**
+     * pool에서 시뮬레이터 하나를 빌려 object program을 실행하고 결과를 돌려준다.
+     *
+     * @param program text 형식의 object program
+     * @param query   URL encoding된 query string. 없으면 null
+     */
+    public String run(byte[] program, String query) {
+        Machine machine;
+        try {
+            machine = pool.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a simulator", e);
+        }
+
+        try {
+            return execute(machine, program, query);
+        } finally {
+            machine.reset();
+            pool.add(machine);
+        }
+    }
+
+    private String execute(Machine machine, byte[] program, String query) {
+        ResourceManager rMgr = machine.rMgr;
+        SicSimulator sicSimulator = machine.sicSimulator;
+
+        long maxSteps = DEFAULT_MAX_STEPS;
+        if (query != null && !query.isEmpty()) {
+            for (String param : query.split("&")) {
+                int eq = param.indexOf('=');
+                String name = decode(eq < 0 ? param : param.substring(0, eq));
+                String value = eq < 0 ? "" : decode(param.substring(eq + 1));
+
+                switch (name) {
+                    case "max" -> maxSteps = Long.parseLong(value);
+                    case "log" -> sicSimulator.setLogging(value.equals("1") || value.equals("true"));
+                    default -> {
+                        rMgr.attachDevice(name, new MemoryDevice(value.getBytes(StandardCharsets.ISO_8859_1)));
+                    }
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(program), StandardCharsets.ISO_8859_1))) {
+            machine.sicLoader.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (rMgr.programs.isEmpty()) throw new IllegalArgumentException("No object program in request body");
+        long loaded = System.nanoTime();
+
+        sicSimulator.load(null);
+        while (sicSimulator.running && sicSimulator.instructionCount < maxSteps) {
+            sicSimulator.oneStep();
+        }
+        boolean halted = !sicSimulator.running;
+        sicSimulator.stop();
+        long finished = System.nanoTime();
+
+        StringBuilder result = new StringBuilder();
+        result.append("status=").append(halted ? "halted" : "limit").append('\n');
+        for (int i = 0; i < REGISTER_NAMES.length; i++) {
+            if (REGISTER_NAMES[i].isEmpty()) continue;
+            result.append(REGISTER_NAMES[i]).append('=')
+                    .append(String.format("%06X", rMgr.getRegister(i) & 0xFFFFFF)).append('\n');
+        }
+        result.append("instructions=").append(sicSimulator.instructionCount).append('\n');
+        result.append("loadMicros=").append((loaded - start) / 1000).append('\n');
+        result.append("runMicros=").append((finished - loaded) / 1000).append('\n');
+
+        rMgr.deviceConfig.keySet().stream().sorted().forEach(devName -> {
+            byte[] output = ((MemoryDevice) rMgr.deviceConfig.get(devName)).getOutput();
+            result.append("dev.").append(devName).append('=')
+                    .append(encode(new String(output, StandardCharsets.ISO_8859_1))).append('\n');
+        });
+        rMgr.deviceStats.keySet().stream().sorted().forEach(devName ->
+                result.append("stats.").append(devName).append('=').append(rMgr.deviceStats.get(devName)).append('\n'));
+
+        if (sicSimulator.logging) {
+            for (String log : sicSimulator.getLogs()) result.append("log=").append(log);
+        }
+        return result.toString();
+    }
+
+    private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.ISO_8859_1);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=ISO-8859-1");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static String decode(String s) {
+        return URLDecoder.decode(s, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String encode(String s) {
+        return URLEncoder.encode(s, StandardCharsets.ISO_8859_1);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int poolSize = Runtime.getRuntime().availableProcessors();
+        int port = DEFAULT_PORT;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-n" -> poolSize = Integer.parseInt(args[++i]);
+                case "-p" -> port = Integer.parseInt(args[++i]);
+                default -> {
+                    System.err.println("Usage: java SimulationService [-n poolsize] [-p port]");
+                    System.exit(1);
+                }
+            }
+        }
+
+        SimulationService service = new SimulationService(poolSize);
+        service.start(port);
+        System.out.println("Listening on http://localhost:" + service.getPort() + "/run with " + poolSize + " simulators");
+    }
+}
@@ -0,0 +1,114 @@
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder로 기록하는 시뮬레이터 event들. JFR을 켜지 않으면 event는 만들어지더라도 기록되지 않고,
+ * shouldCommit 검사만 하므로 비용이 거의 없다.
+ *
+ * JFR을 켜고 실행하려면 예를 들어 다음과 같이 한다.
+ * java -XX:StartFlightRecording=filename=sim.jfr HeadlessSimulator object_code.obj
+ *
+ * 명령어 묶음(InstructionBatch) event는 양이 많으므로 기본으로 꺼져 있으며, JFR 설정에서 sic.InstructionBatch를
+ * 켜면 기록된다.
+ */
+public final class SimulatorEvents {
+    // InstructionBatch event 하나가 묶는 명령어 수
+    static final int BATCH_SIZE = 10_000;
+
+    static final EventType BATCH_TYPE = EventType.getEventType(InstructionBatch.class);
+
+    private SimulatorEvents() {
+    }
+
+    @Name("sic.Load")
+    @Label("Program Load")
+    @Category({"SIC/XE Simulator", "Loader"})
+    @StackTrace(false)
+    public static class Load extends Event {
+        @Label("Program")
+        String program;
+
+        @Label("Load Address")
+        int loadAddress;
+
+        @Label("Length")
+        @DataAmount
+        int length;
+
+        @Label("Control Sections")
+        int sections;
+
+        @Label("From Cache")
+        boolean cached;
+    }
+
+    @Name("sic.LoadRecords")
+    @Label("Object Records")
+    @Description("Number of records of one type read during a program load")
+    @Category({"SIC/XE Simulator", "Loader"})
+    @StackTrace(false)
+    public static class LoadRecords extends Event {
+        @Label("Program")
+        String program;
+
+        @Label("Record Type")
+        char recordType;
+
+        @Label("Count")
+        int count;
+    }
+
+    @Name("sic.Run")
+    @Label("Program Run")
+    @Description("One run of a loaded program, from load until it halts")
+    @Category({"SIC/XE Simulator", "Execution"})
+    @StackTrace(false)
+    public static class Run extends Event {
+        @Label("Program")
+        String program;
+
+        @Label("Instructions")
+        long instructions;
+
+        @Label("Final PC")
+        int finalPC;
+    }
+
+    @Name("sic.DeviceIO")
+    @Label("Device I/O")
+    @Category({"SIC/XE Simulator", "Devices"})
+    @StackTrace(false)
+    public static class DeviceIO extends Event {
+        @Label("Device")
+        String device;
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Bytes")
+        @DataAmount
+        int bytes;
+
+        @Label("Ready")
+        boolean ready;
+    }
+
+    @Name("sic.InstructionBatch")
+    @Label("Instruction Batch")
+    @Description("A batch of consecutively executed guest instructions")
+    @Category({"SIC/XE Simulator", "Execution"})
+    @Enabled(false)
+    @StackTrace(false)
+    public static class InstructionBatch extends Event {
+        @Label("Instructions")
+        int instructions;
+
+        @Label("Start PC")
+        int startPC;
+
+        @Label("End PC")
+        int endPC;
+
+        @Label("Control Section")
+        String section;
+    }
+}
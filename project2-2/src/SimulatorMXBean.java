@@ -0,0 +1,48 @@
+/**
+ * JMX로 공개하는 시뮬레이터의 상태와 제어 명령. SicSimulator.registerMBean()으로 등록하면 JConsole 등에서
+ * "sic:type=Simulator,id=번호" 이름으로 볼 수 있다.
+ *
+ * 카운터는 명령어마다가 아니라 SimulatorMonitor.PUBLISH_INTERVAL개마다 갱신되므로 조금 늦게 반영될 수 있다.
+ */
+public interface SimulatorMXBean {
+    /**
+     * @return load 이후 수행한 명령어 수
+     */
+    long getInstructionCount();
+
+    /**
+     * @return 최근 갱신 구간에서의 초당 명령어 수
+     */
+    double getInstructionsPerSecond();
+
+    /**
+     * @return 현재 PC (16진수)
+     */
+    String getProgramCounter();
+
+    /**
+     * @return 현재 PC가 속한 control section의 이름
+     */
+    String getControlSection();
+
+    long getDeviceBytesRead();
+
+    long getDeviceBytesWritten();
+
+    /**
+     * @return IDLE(load 전), RUNNING, PAUSED, HALTED 중 하나
+     */
+    String getState();
+
+    /**
+     * 다음 갱신 시점에 실행을 멈추고 resume을 기다린다.
+     */
+    void pause();
+
+    void resume();
+
+    /**
+     * 실행 중인 프로그램을 끝낸다. 출력 디바이스의 버퍼는 비워진다.
+     */
+    void stop();
+}
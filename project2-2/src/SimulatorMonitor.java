@@ -0,0 +1,178 @@
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SicSimulator 하나의 JMX MBean 구현. 시뮬레이터 스레드는 명령어를 PUBLISH_INTERVAL개 수행할 때마다 publish로 카운터를
+ * 한 번에 내보내고, JMX 스레드는 그 값만 읽는다. 따라서 명령어마다 volatile 쓰기를 하지 않는다.
+ *
+ * pause, resume, stop 요청은 이 객체에 기록되며, 실행 루프가 명령어 묶음 사이마다 awaitRunnable로 확인한다.
+ */
+public class SimulatorMonitor implements SimulatorMXBean {
+    // 2의 거듭제곱이어야 한다.
+    static final int PUBLISH_INTERVAL = 4096;
+
+    // 초당 명령어 수를 계산하는 최소 시간 간격
+    static final long RATE_WINDOW_NANOS = 200_000_000L;
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private final ResourceManager rMgr;
+    final int id = NEXT_ID.incrementAndGet();
+    private ObjectName name;
+
+    // 시뮬레이터 스레드가 publish로 갱신하는 값
+    private volatile long instructions;
+    private volatile int pc;
+    private volatile double instructionsPerSecond;
+    private volatile boolean loaded;
+    private volatile boolean halted;
+
+    // 초당 명령어 수 계산용. 시뮬레이터 스레드만 사용한다.
+    private long lastCount;
+    private long lastNanos;
+
+    // 제어 요청. this로 동기화한다.
+    private boolean paused;
+    private boolean stopRequested;
+
+    public SimulatorMonitor(ResourceManager rMgr) {
+        this.rMgr = rMgr;
+    }
+
+    /**
+     * 새 프로그램을 load했을 때 카운터와 stop 요청을 초기화한다.
+     */
+    synchronized void reset(int startPC) {
+        stopRequested = false;
+        lastCount = 0;
+        lastNanos = System.nanoTime();
+        instructions = 0;
+        instructionsPerSecond = 0;
+        pc = startPC;
+        halted = false;
+        loaded = true;
+    }
+
+    /**
+     * 시뮬레이터 스레드의 카운터를 내보낸다.
+     */
+    void publish(long count, int pc) {
+        long now = System.nanoTime();
+        if (now - lastNanos >= RATE_WINDOW_NANOS) {
+            instructionsPerSecond = (count - lastCount) * 1e9 / (now - lastNanos);
+            lastCount = count;
+            lastNanos = now;
+        }
+
+        this.pc = pc;
+        this.instructions = count;
+    }
+
+    void publishHalt(long count, int pc) {
+        publish(count, pc);
+        instructionsPerSecond = 0;
+        halted = true;
+        resume();
+    }
+
+    /**
+     * pause 중이면 resume이나 stop이 요청될 때까지 기다린다.
+     *
+     * @return 계속 실행해도 되면 true, stop이 요청되었으면 false
+     */
+    synchronized boolean awaitRunnable() {
+        try {
+            while (paused && !stopRequested) wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return !stopRequested;
+    }
+
+    /**
+     * platform MBean server에 "sic:type=Simulator,id=번호" 이름으로 등록한다.
+     */
+    public synchronized ObjectName register() {
+        if (name != null) return name;
+        try {
+            ObjectName objectName = new ObjectName("sic:type=Simulator,id=" + id);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            name = objectName;
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register simulator MBean", e);
+        }
+    }
+
+    public synchronized void unregister() {
+        if (name == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to unregister simulator MBean", e);
+        } finally {
+            name = null;
+        }
+    }
+
+    @Override
+    public long getInstructionCount() {
+        return instructions;
+    }
+
+    @Override
+    public double getInstructionsPerSecond() {
+        return instructionsPerSecond;
+    }
+
+    @Override
+    public String getProgramCounter() {
+        return String.format("%06X", pc);
+    }
+
+    @Override
+    public String getControlSection() {
+        return rMgr.addressIndex.sectionNameAt(pc);
+    }
+
+    @Override
+    public long getDeviceBytesRead() {
+        long bytes = 0;
+        for (DeviceStats stats : rMgr.deviceStats.values()) bytes += stats.getReadBytes();
+        return bytes;
+    }
+
+    @Override
+    public long getDeviceBytesWritten() {
+        long bytes = 0;
+        for (DeviceStats stats : rMgr.deviceStats.values()) bytes += stats.getWriteBytes();
+        return bytes;
+    }
+
+    @Override
+    public synchronized String getState() {
+        if (!loaded) return "IDLE";
+        if (halted) return "HALTED";
+        return paused ? "PAUSED" : "RUNNING";
+    }
+
+    @Override
+    public synchronized void pause() {
+        if (!halted) paused = true;
+    }
+
+    @Override
+    public synchronized void resume() {
+        paused = false;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void stop() {
+        stopRequested = true;
+        notifyAll();
+    }
+}
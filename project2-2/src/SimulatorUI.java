@@ -2,6 +2,7 @@ import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.io.File;
+import java.io.IOException;
 
 /**
  * GUI 구성 및 사용자 인터랙션 처리를 담당한다.
@@ -26,11 +27,17 @@ public class SimulatorUI extends JFrame {
 
     // Simulator
     JTextField memStartAddrField, targetAddrField, deviceField;
-    JTextPane memArea;
-    JButton executeButton1Step, executeButtonAll, terminateButton;
+    MemoryView memView;
+    JButton executeButton1Step, executeButtonAll, terminateButton, deviceStatsButton;
+    JCheckBox heatmapCheckBox;
+    JButton heatmapExportButton;
+
+    // Disassembly
+    DisassemblyView disasmView;
 
     // Log
     JTextPane logTextArea;
+    JButton olderLogButton;
 
     /**
      * 컴포넌트 초기화, 레이아웃 설정, 버튼 리스너를 등록한다.
@@ -58,6 +65,7 @@ public class SimulatorUI extends JFrame {
         JPanel registerPanel = buildRegisterPanel();
         JPanel simulatorPanel = buildSimulatorPanel();
         JPanel logPanel = buildLogPanel();
+        JPanel disasmPanel = buildDisassemblyPanel();
 
         layout.setHorizontalGroup(
                 layout.createParallelGroup(GroupLayout.Alignment.LEADING)
@@ -69,7 +77,9 @@ public class SimulatorUI extends JFrame {
                                 .addGroup(layout.createParallelGroup(GroupLayout.Alignment.LEADING)
                                         .addComponent(endPanel)
                                         .addComponent(simulatorPanel)))
-                        .addComponent(logPanel)
+                        .addGroup(layout.createSequentialGroup()
+                                .addComponent(logPanel)
+                                .addComponent(disasmPanel))
 
 
         );
@@ -86,7 +96,9 @@ public class SimulatorUI extends JFrame {
                                 .addGroup(layout.createSequentialGroup()
                                         .addComponent(endPanel, 0, GroupLayout.DEFAULT_SIZE, GroupLayout.PREFERRED_SIZE)
                                         .addComponent(simulatorPanel, GroupLayout.DEFAULT_SIZE, GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)))
-                        .addComponent(logPanel)
+                        .addGroup(layout.createParallelGroup(GroupLayout.Alignment.LEADING)
+                                .addComponent(logPanel)
+                                .addComponent(disasmPanel))
         );
 
         setContentPane(mainPanel);
@@ -94,11 +106,20 @@ public class SimulatorUI extends JFrame {
         // 파일 열기 버튼 리스너 등록
         openButton.addActionListener(e -> {
             JFileChooser chooser = new JFileChooser();
+            chooser.setMultiSelectionEnabled(true);
             /*chooser.setFileFilter(new FileNameExtensionFilter("Obj File", "obj"));*/
             if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
-                File file = chooser.getSelectedFile();
-                fileNameField.setText(file.getName());
-                visualSimulator.load(file);
+                // 여러 파일을 선택하면 하나의 프로그램으로 link한다.
+                File[] files = chooser.getSelectedFiles();
+                if (files.length == 0) files = new File[]{chooser.getSelectedFile()};
+
+                StringBuilder names = new StringBuilder();
+                for (File file : files) {
+                    if (names.length() > 0) names.append(", ");
+                    names.append(file.getName());
+                }
+                fileNameField.setText(names.toString());
+                visualSimulator.load(files);
             }
         });
 
@@ -106,11 +127,52 @@ public class SimulatorUI extends JFrame {
         executeButton1Step.addActionListener(e -> visualSimulator.oneStep());
         executeButtonAll.addActionListener(e -> visualSimulator.allStep());
 
+        // 장치 통계 버튼 리스너 등록
+        deviceStatsButton.addActionListener(e -> showDeviceStats());
+
+        // heatmap 리스너 등록
+        heatmapCheckBox.addActionListener(e -> {
+            visualSimulator.setHeatmapEnabled(heatmapCheckBox.isSelected());
+            heatmapExportButton.setEnabled(heatmapCheckBox.isSelected());
+        });
+        heatmapExportButton.addActionListener(e -> exportHeatmap());
+
+        // 이전 로그 버튼 리스너 등록
+        olderLogButton.addActionListener(e -> visualSimulator.showOlderLogs());
+
         // 종료 버튼 리스너 등록
         terminateButton.addActionListener(e -> System.exit(0));
 
     }
 
+    /**
+     * 디바이스별 입출력 통계를 대화상자로 보여준다.
+     * */
+    private void showDeviceStats() {
+        String report = visualSimulator.getDeviceReport();
+
+        JTextArea area = new JTextArea(report.isEmpty() ? "No device used" : report);
+        area.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        area.setEditable(false);
+
+        JOptionPane.showMessageDialog(this, new JScrollPane(area), "Device I/O", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /**
+     * heatmap을 저장할 파일을 골라 저장한다. 확장자가 .csv이면 CSV로, 아니면 PNG 이미지로 저장한다.
+     * */
+    private void exportHeatmap() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("heatmap.png"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        try {
+            visualSimulator.exportHeatmap(chooser.getSelectedFile());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Heatmap", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     /**
      * 파일 선택과 관련된 패널을 생성한다.
      * */
@@ -333,10 +395,9 @@ public class SimulatorUI extends JFrame {
 
         // memory
         JLabel memLabel = new JLabel("Memory : ");
-        memArea = new JTextPane();
-        memArea.setEditable(false);
+        memView = new MemoryView(visualSimulator.displayResources);
 
-        JScrollPane memScrollPane = new JScrollPane(memArea);
+        JScrollPane memScrollPane = new JScrollPane(memView);
         memScrollPane.setPreferredSize(new Dimension(300, 100));
         memScrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
         memScrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
@@ -350,6 +411,10 @@ public class SimulatorUI extends JFrame {
         executeButton1Step = new JButton("실행(1step)");
         executeButtonAll = new JButton("실행 (all)");
         terminateButton = new JButton("종료");
+        deviceStatsButton = new JButton("장치 통계");
+        heatmapCheckBox = new JCheckBox("Heatmap");
+        heatmapExportButton = new JButton("Heatmap 저장");
+        heatmapExportButton.setEnabled(false);
 
         // layout
         GroupLayout layout = new GroupLayout(panel);
@@ -373,6 +438,9 @@ public class SimulatorUI extends JFrame {
                                         .addComponent(deviceField, 0, GroupLayout.DEFAULT_SIZE, GroupLayout.DEFAULT_SIZE)
                                         .addComponent(executeButton1Step, 0, GroupLayout.PREFERRED_SIZE, Short.MAX_VALUE)
                                         .addComponent(executeButtonAll, 0, GroupLayout.PREFERRED_SIZE, Short.MAX_VALUE)
+                                        .addComponent(deviceStatsButton, 0, GroupLayout.PREFERRED_SIZE, Short.MAX_VALUE)
+                                        .addComponent(heatmapCheckBox)
+                                        .addComponent(heatmapExportButton, 0, GroupLayout.PREFERRED_SIZE, Short.MAX_VALUE)
                                         .addComponent(terminateButton, 0, GroupLayout.PREFERRED_SIZE, Short.MAX_VALUE))
                         )
         );
@@ -392,6 +460,9 @@ public class SimulatorUI extends JFrame {
                                         .addComponent(deviceField, 0, GroupLayout.DEFAULT_SIZE, GroupLayout.PREFERRED_SIZE)
                                         .addComponent(executeButton1Step)
                                         .addComponent(executeButtonAll)
+                                        .addComponent(deviceStatsButton)
+                                        .addComponent(heatmapCheckBox)
+                                        .addComponent(heatmapExportButton)
                                         .addComponent(terminateButton)))
 
         );
@@ -399,6 +470,39 @@ public class SimulatorUI extends JFrame {
         return panel;
     }
 
+    /**
+     * 적재된 프로그램의 역어셈블 결과를 보여주는 패널을 생성한다.
+     * */
+    private JPanel buildDisassemblyPanel() {
+        JPanel panel = new JPanel();
+
+        JLabel disasmLabel = new JLabel("Disassembly : ");
+        disasmView = new DisassemblyView(visualSimulator.predecoder);
+
+        JScrollPane scrollPane = new JScrollPane(disasmView);
+        scrollPane.setPreferredSize(new Dimension(380, 200));
+
+        GroupLayout layout = new GroupLayout(panel);
+        panel.setLayout(layout);
+
+        layout.setAutoCreateGaps(true);
+        layout.setAutoCreateContainerGaps(true);
+
+        layout.setHorizontalGroup(
+                layout.createParallelGroup(GroupLayout.Alignment.LEADING)
+                        .addComponent(disasmLabel)
+                        .addComponent(scrollPane)
+        );
+
+        layout.setVerticalGroup(
+                layout.createSequentialGroup()
+                        .addComponent(disasmLabel)
+                        .addComponent(scrollPane)
+        );
+
+        return panel;
+    }
+
     /**
      * 명령어 실행 로그를 출력하는 패널을 생성한다.
      * */
@@ -409,6 +513,9 @@ public class SimulatorUI extends JFrame {
         logTextArea = new JTextPane();
         logTextArea.setEditable(false);
 
+        olderLogButton = new JButton("이전 로그");
+        olderLogButton.setEnabled(false);
+
         JScrollPane scrollPane = new JScrollPane(logTextArea);
         scrollPane.setPreferredSize(new Dimension(300, 200));
 
@@ -420,13 +527,17 @@ public class SimulatorUI extends JFrame {
 
         layout.setHorizontalGroup(
                 layout.createParallelGroup(GroupLayout.Alignment.LEADING)
-                        .addComponent(logLabel)
+                        .addGroup(layout.createSequentialGroup()
+                                .addComponent(logLabel)
+                                .addComponent(olderLogButton))
                         .addComponent(scrollPane)
         );
 
         layout.setVerticalGroup(
                 layout.createSequentialGroup()
-                        .addComponent(logLabel)
+                        .addGroup(layout.createParallelGroup(GroupLayout.Alignment.BASELINE)
+                                .addComponent(logLabel)
+                                .addComponent(olderLogButton))
                         .addComponent(scrollPane)
         );
 
@@ -0,0 +1,177 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * JSUB/RSUB를 따라가는 shadow call stack으로 guest 프로그램의 시간이 어느 subroutine에서 쓰이는지 측정한다.
+ *
+ * JSUB는 돌아올 주소를 L 레지스터에 저장하고 target으로 이동하며, RSUB는 L로 돌아온다. profiler는 JSUB를 만나면
+ * target 주소를 frame으로 push하고 RSUB를 만나면 pop한다. 명령어를 interval개 수행할 때마다 현재 stack을 한 번
+ * sample로 센다. stack은 frame 주소의 trie로 보관하므로 sample 하나는 현재 node의 카운터를 올리는 것으로 끝난다.
+ *
+ * ProgramScheduler로 여러 프로그램을 번갈아 실행할 때는 프로그램마다 CallStack을 하나씩 두고, 전환할 때 switchTo로
+ * 바꾼다. 그래서 한 프로그램의 JSUB/RSUB가 다른 프로그램의 stack에 쌓이지 않는다.
+ *
+ * 결과는 flame graph 도구가 읽는 collapsed stack 형식("COPY;RDREC 42")으로 저장하며, frame 이름은 AddressIndex로
+ * symbol table에서 찾는다.
+ */
+public class StackProfiler {
+    static final int DEFAULT_INTERVAL = 100;
+    // RSUB 없이 JSUB만 반복하는 프로그램에서 stack이 끝없이 자라지 않도록 이 깊이부터는 frame을 더 쌓지 않는다.
+    static final int MAX_DEPTH = 256;
+
+    private final ResourceManager rMgr;
+    private final int interval;
+
+    private final ArrayList<CallStack> stacks = new ArrayList<>();
+    private CallStack stack;
+    private int countdown;
+
+    /**
+     * 프로그램 하나의 shadow call stack. entry 주소의 root frame에서 시작한다.
+     */
+    static final class CallStack {
+        final Frame root;
+        Frame current;
+        int depth;
+        // MAX_DEPTH를 넘어서 쌓지 않은 JSUB의 수. 그만큼의 RSUB는 pop하지 않는다.
+        int overflow;
+
+        CallStack(int entry) {
+            root = new Frame(entry, null);
+            current = root;
+        }
+    }
+
+    /**
+     * call stack의 한 frame. 같은 경로로 호출된 subroutine은 같은 node를 공유한다.
+     */
+    private static final class Frame {
+        final int address;
+        final Frame parent;
+        final HashMap<Integer, Frame> children = new HashMap<>();
+        long samples;
+
+        Frame(int address, Frame parent) {
+            this.address = address;
+            this.parent = parent;
+        }
+
+        Frame child(int address) {
+            Frame child = children.get(address);
+            if (child == null) {
+                child = new Frame(address, this);
+                children.put(address, child);
+            }
+            return child;
+        }
+    }
+
+    public StackProfiler(ResourceManager rMgr, int interval) {
+        if (interval <= 0) throw new IllegalArgumentException("Sampling interval must be positive: " + interval);
+        this.rMgr = rMgr;
+        this.interval = interval;
+        reset(0);
+    }
+
+    /**
+     * 지금까지의 sample을 지우고 entry 주소에서 시작하는 새 stack을 만든다. 프로그램을 load할 때 호출한다.
+     */
+    public void reset(int entry) {
+        stacks.clear();
+        stack = newStack(entry);
+        countdown = interval;
+    }
+
+    /**
+     * entry 주소에서 시작하는 stack을 하나 더 만든다. 함께 적재된 다른 프로그램의 stack으로 쓴다.
+     */
+    CallStack newStack(int entry) {
+        CallStack added = new CallStack(entry);
+        stacks.add(added);
+        return added;
+    }
+
+    /**
+     * 현재 기록 중인 stack. reset 직후에는 reset에 넘긴 entry의 stack이다.
+     */
+    CallStack currentStack() {
+        return stack;
+    }
+
+    /**
+     * 이후의 JSUB/RSUB와 sample을 주어진 stack에 기록한다. scheduler가 프로그램을 전환할 때 호출한다.
+     */
+    void switchTo(CallStack stack) {
+        this.stack = stack;
+    }
+
+    /**
+     * 명령어 하나를 수행한 뒤 호출한다.
+     *
+     * @param mnemonic 수행한 명령어
+     * @param pc       수행한 뒤의 PC. JSUB이면 호출한 subroutine의 시작 주소이다
+     */
+    public void step(String mnemonic, int pc) {
+        CallStack s = stack;
+        if (mnemonic.equals("JSUB")) {
+            if (s.depth < MAX_DEPTH) {
+                s.current = s.current.child(pc);
+                s.depth++;
+            } else {
+                s.overflow++;
+            }
+        } else if (mnemonic.equals("RSUB")) {
+            if (s.overflow > 0) {
+                s.overflow--;
+            } else if (s.current.parent != null) {
+                s.current = s.current.parent;
+                s.depth--;
+            }
+        }
+
+        if (--countdown == 0) {
+            countdown = interval;
+            s.current.samples++;
+        }
+    }
+
+    /**
+     * sample을 collapsed stack 형식으로 쓴다. 한 줄이 하나의 stack이며, frame 이름을 ';'로 이어 쓰고 sample 수를 붙인다.
+     */
+    public void writeCollapsed(Writer out) throws IOException {
+        StringBuilder path = new StringBuilder();
+        for (CallStack s : stacks) writeFrame(out, s.root, path);
+        out.flush();
+    }
+
+    public void writeCollapsed(File file) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writeCollapsed(out);
+        }
+    }
+
+    private void writeFrame(Writer out, Frame frame, StringBuilder path) throws IOException {
+        int length = path.length();
+        if (length > 0) path.append(';');
+        path.append(frameName(frame.address));
+
+        if (frame.samples > 0) {
+            out.write(path.toString());
+            out.write(' ');
+            out.write(Long.toString(frame.samples));
+            out.write('\n');
+        }
+        for (Frame child : frame.children.values()) {
+            writeFrame(out, child, path);
+        }
+
+        path.setLength(length);
+    }
+
+    private String frameName(int address) {
+        // collapsed 형식에서 ';'와 공백은 구분자이므로 이름에 쓰지 않는다.
+        return rMgr.addressIndex.annotate(address).replace(';', '_').replace(' ', '_');
+    }
+}
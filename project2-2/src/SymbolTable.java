@@ -1,17 +1,27 @@
-import java.util.ArrayList;
-
 /**
- * symbol과 관련된 데이터와 연산을 소유한다. section 별로 하나씩 인스턴스를 할당한다.
+ * symbol과 관련된 데이터와 연산을 소유한다. section 별로 하나씩 인스턴스를 할당하며, 프로그램 전체의 외부 symbol
+ * table(ESTAB)로도 사용한다.
+ *
+ * symbol은 추가된 순서대로 symbolList와 addressList 배열에 저장하고, open addressing 방식의 hash index(slots)로
+ * 찾는다. 따라서 putSymbol, modifySymbol, search는 symbol 개수와 상관없이 O(1)에 수행된다. 주소는 int 배열에 그대로
+ * 저장한다.
  */
 public class SymbolTable {
-    ArrayList<String> symbolList;
-    ArrayList<Integer> addressList;
+    static final int INITIAL_CAPACITY = 8;
+
+    String[] symbolList;
+    int[] addressList;
+    int count;
     // 기타 literal, external 선언 및 처리방법을 구현한다.
 
+    // hash index. 해당 symbol의 index + 1을 저장하고, 0이면 빈 칸이다. 크기는 항상 2의 거듭제곱이다.
+    private int[] slots;
+
 
     public SymbolTable() {
-        symbolList = new ArrayList<>();
-        addressList = new ArrayList<>();
+        symbolList = new String[INITIAL_CAPACITY];
+        addressList = new int[INITIAL_CAPACITY];
+        slots = new int[INITIAL_CAPACITY * 2];
     }
 
     /**
@@ -24,12 +34,25 @@ public class SymbolTable {
      *                나타낸다. 매칭되는 주소값의 변경은 modifySymbol()을 통해서 이루어져야 한다.
      */
     public void putSymbol(String symbol, int address) {
-        if (symbolList.contains(symbol)) {
+        if (indexOf(symbol) >= 0) {
             throw new IllegalArgumentException("Symbol " + symbol + " already exists");
         }
 
-        symbolList.add(symbol);
-        addressList.add(address);
+        if (count == symbolList.length) {
+            int capacity = count * 2;
+            String[] symbols = new String[capacity];
+            int[] addresses = new int[capacity];
+            System.arraycopy(symbolList, 0, symbols, 0, count);
+            System.arraycopy(addressList, 0, addresses, 0, count);
+            symbolList = symbols;
+            addressList = addresses;
+            rehash(capacity * 2);
+        }
+
+        symbolList[count] = symbol;
+        addressList[count] = address;
+        insertSlot(count);
+        count++;
     }
 
     /**
@@ -39,12 +62,12 @@ public class SymbolTable {
      * @param newaddress : 새로 바꾸고자 하는 주소값
      */
     public void modifySymbol(String symbol, int newaddress) {
-        int index = symbolList.indexOf(symbol);
+        int index = indexOf(symbol);
         if (index < 0) {
             throw new IllegalArgumentException("Symbol " + symbol + " does not exist");
         }
 
-        addressList.set(index, newaddress);
+        addressList[index] = newaddress;
     }
 
     /**
@@ -54,13 +77,78 @@ public class SymbolTable {
      * @return symbol이 가지고 있는 주소값. 해당 symbol이 없을 경우 -1 리턴
      */
     public int search(String symbol) {
-        int address;
-        int index = symbolList.indexOf(symbol);
+        int index = indexOf(symbol);
 
         if (index < 0) return -1;
-        else address = addressList.get(index);
+        return addressList[index];
+    }
+
+    /**
+     * 다른 table의 symbol을 모두 이 table에 추가한다. 중복된 symbol이 있으면 putSymbol과 같이 예외를 던진다.
+     *
+     * @param other : 추가할 symbol들을 가진 table
+     */
+    public void putAll(SymbolTable other) {
+        for (int i = 0; i < other.size(); i++) {
+            putSymbol(other.getSymbol(i), other.getAddress(i));
+        }
+    }
 
-        return address;
+    /**
+     * @return table에 들어있는 symbol의 개수
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return 추가된 순서로 index번째 symbol의 label
+     */
+    public String getSymbol(int index) {
+        checkIndex(index);
+        return symbolList[index];
+    }
+
+    /**
+     * @return 추가된 순서로 index번째 symbol의 주소값
+     */
+    public int getAddress(int index) {
+        checkIndex(index);
+        return addressList[index];
+    }
+
+    private int indexOf(String symbol) {
+        int mask = slots.length - 1;
+        for (int h = hash(symbol) & mask; ; h = (h + 1) & mask) {
+            int slot = slots[h];
+            if (slot == 0) return -1;
+
+            String s = symbolList[slot - 1];
+            if (s.equals(symbol)) return slot - 1;
+        }
+    }
+
+    private void insertSlot(int index) {
+        int mask = slots.length - 1;
+        int h = hash(symbolList[index]) & mask;
+        while (slots[h] != 0) h = (h + 1) & mask;
+        slots[h] = index + 1;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        for (int i = 0; i < count; i++) insertSlot(i);
+    }
+
+    private static int hash(String symbol) {
+        int h = symbol.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Symbol index " + index + " out of range");
+        }
     }
 
 }
@@ -1,11 +1,15 @@
-import javax.swing.*;
+import javax.swing.Timer;
+import javax.swing.text.AbstractDocument;
 import javax.swing.text.BadLocationException;
-import javax.swing.text.SimpleAttributeSet;
-import javax.swing.text.StyleConstants;
-import javax.swing.text.StyledDocument;
 import java.awt.*;
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * VisualSimulator는 사용자와의 상호작용을 담당한다. 즉, 버튼 클릭등의 이벤트를 전달하고 그에 따른 결과값을 화면에 업데이트
@@ -17,10 +21,54 @@ public class VisualSimulator {
     ResourceManager resourceManager = new ResourceManager();
     SicLoader sicLoader = new SicLoader(resourceManager);
     SicSimulator sicSimulator = new SicSimulator(resourceManager);
+
+    // 화면에 그리는 메모리 사본. MemoryView와 역어셈블은 실행 중인 메모리 대신 이 사본을 읽는다.
+    final ResourceManager displayResources = new ResourceManager();
+    Predecoder predecoder = new Predecoder(displayResources);
     private SimulatorUI ui;
 
     boolean isLoaded; // 프로그램 로드 여부
 
+    // 연속 실행 중 화면 갱신 빈도(초당 횟수)와, 실행 스레드가 상태를 넘겨주는 사이에 수행하는 명령어 수
+    static final int FRAME_RATE = 30;
+    static final int RUN_BATCH = 1000;
+
+    // 연속 실행 스레드. 실행 중이 아니면 null이다.
+    private volatile Thread runner;
+    private Timer refreshTimer;
+
+    // 연속 실행 중에 실행 스레드가 batch 사이에 처리할 작업. 실행 중이 아니면 바로 처리한다.
+    private final Queue<Runnable> runnerTasks = new ConcurrentLinkedQueue<>();
+
+    // 화면 상태는 세 개의 ViewState를 돌려 쓴다. 실행 스레드가 spare나 아직 그리지 않은 pending에 상태를 복사해서
+    // pending에 넘기고, EDT는 pending을 가져가 그린 뒤 이전에 그린 상태를 spare로 돌려준다. 어느 쪽도 상대를
+    // 기다리지 않는다. rendered가 null이면 모든 컴포넌트를 다시 그린다.
+    private final AtomicReference<ViewState> pending = new AtomicReference<>();
+    private final AtomicReference<ViewState> spare = new AtomicReference<>(new ViewState());
+    private ViewState rendered;
+
+    // 상태를 복사하는 스레드가 dirty page를 받을 배열
+    private final long[] takenPages = new long[resourceManager.getDirtyPageWords()];
+
+    // log 화면에 한 번에 보여주는 최대 줄 수와 '이전 로그' 버튼으로 한 번에 더 불러오는 줄 수
+    // 이전 로그를 불러와도 log 화면에 한 번에 두는 줄 수는 LOG_HISTORY_LIMIT을 넘지 않는다.
+    static final int LOG_VISIBLE_LIMIT = 1000;
+    static final int LOG_PAGE_SIZE = 500;
+    static final int LOG_HISTORY_LIMIT = 10 * LOG_VISIBLE_LIMIT;
+
+    // 화면에 넘겨받은 시뮬레이터의 로그 목록과 그중 읽어도 되는 줄 수, 표시 중인 범위 [logFirst, logEnd). 로그는
+    // 복사하지 않고 목록에서 index로 읽는다. logLimit은 이전 로그를 불러온 만큼 늘어나며, 최근 로그로 다시 그리면
+    // LOG_VISIBLE_LIMIT으로 돌아간다.
+    private List<String> shownLogs;
+    private int shownLogCount;
+    private int logFirst, logEnd;
+    private int logLimit = LOG_VISIBLE_LIMIT;
+
+    public VisualSimulator() {
+        // 같은 파일을 다시 열면 해석 없이 이전에 link한 이미지를 사용한다.
+        sicLoader.setCache(new LoadCache());
+    }
+
     /**
      * UI 컴포넌트를 연결한다.
      * */
@@ -31,16 +79,21 @@ public class VisualSimulator {
         // 실행 버튼 비활성화
         ui.executeButton1Step.setEnabled(false);
         ui.executeButtonAll.setEnabled(false);
+
+        // 연속 실행 중에는 매 명령어가 아니라 일정한 간격으로만 화면을 갱신한다.
+        refreshTimer = new Timer(1000 / FRAME_RATE, e -> update());
     }
 
     /**
-     * 프로그램 로드 명령을 전달한다.
+     * 프로그램 로드 명령을 전달한다. 여러 파일을 넘기면 하나의 프로그램으로 link한다.
      */
-    public void load(File program) {
+    public void load(File... programs) {
         // ...
-        sicLoader.load(program);
-        sicSimulator.load(program);
+        sicLoader.load(programs);
+        sicSimulator.load(programs[0]);
         isLoaded = true;
+        resourceManager.markAllDirty();
+        rendered = null;
         update();
     };
 
@@ -53,36 +106,141 @@ public class VisualSimulator {
     };
 
     /**
-     * 남아있는 모든 명령어를 수행할 것을 SicSimulator에 요청한다.
+     * 남아있는 모든 명령어를 수행할 것을 SicSimulator에 요청한다. 명령어는 별도의 스레드에서 수행하고, 화면은 실행이
+     * 끝날 때까지 FRAME_RATE에 맞춰 갱신한다.
      */
     public void allStep() {
-        sicSimulator.allStep();
+        if (ui == null) {
+            sicSimulator.allStep();
+            return;
+        }
+        if (runner != null) return;
+
+        runner = new Thread(this::runAll, "simulator-run");
+        runner.setDaemon(true);
+        runner.start();
+        refreshTimer.start();
         update();
     };
 
+    private void runAll() {
+        try {
+            boolean running = true;
+            while (running) {
+                // JMX로 pause되어 있는 동안에는 마지막 batch 뒤에 넘긴 상태가 화면에 남아 있다.
+                if (!sicSimulator.monitor.awaitRunnable()) {
+                    sicSimulator.stop();
+                    break;
+                }
+
+                for (int i = 0; i < RUN_BATCH && sicSimulator.running; i++) {
+                    sicSimulator.oneStep();
+                }
+                running = sicSimulator.running;
+
+                // 명령어 사이에서만 상태를 복사하므로, 명령어 중간의 상태를 그리는 일은 없다.
+                runTasks();
+                publish();
+            }
+        } finally {
+            EventQueue.invokeLater(() -> {
+                refreshTimer.stop();
+                runner = null;
+                runTasks();
+                update();
+            });
+        }
+    }
+
     /**
-     * 화면을 최신값으로 갱신하는 역할을 수행한다.
+     * 시뮬레이터의 상태를 바꾸는 작업을 실행 스레드에 맡긴다. 실행 중이 아니면 바로 처리한다.
      */
-    public void update() {
-        if (ui == null) return;
-        // 버튼 활성화
-        if (isLoaded) {
-            ui.executeButton1Step.setEnabled(true);
-            ui.executeButtonAll.setEnabled(true);
+    private void runOnSimulator(Runnable task) {
+        if (runner == null) {
+            task.run();
+            return;
+        }
+        runnerTasks.add(task);
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = runnerTasks.poll()) != null) task.run();
+    }
+
+    /**
+     * 현재 상태를 ViewState에 복사해서 EDT에 넘긴다. 연속 실행 중에는 실행 스레드가, 그 밖에는 EDT가 호출한다.
+     * 아직 그리지 않은 상태가 있으면 그 위에 덧붙이므로, 그 사이에 바뀐 page와 로그를 잃지 않는다. EDT는 많아야 두
+     * 개의 ViewState를 가지고 있으므로 pending과 spare 중 하나는 항상 비어 있지 않다.
+     */
+    private void publish() {
+        ViewState state = pending.getAndSet(null);
+        if (state == null) state = spare.getAndSet(null);
+        if (state == null) return;
+
+        ResourceManager rMgr = resourceManager;
+        System.arraycopy(rMgr.register, 0, state.registers, 0, state.registers.length);
+        state.csInfo = rMgr.csInfos.get(sicSimulator.curCs);
+        state.memStartAddr = rMgr.memStartAddr;
+        state.targetAddr = sicSimulator.targetAddr;
+        state.device = sicSimulator.useDev ? sicSimulator.curDev : "";
+        state.prevAddr = sicSimulator.prevAddr;
+        state.prevLen = sicSimulator.prevLen;
+        state.addressIndex = rMgr.addressIndex;
+        state.heatmap = rMgr.heatmap;
+
+        // 쓰기가 있었던 page만 복사한다.
+        if (rMgr.takeDirtyPages(takenPages)) {
+            int pageSize = 1 << ResourceManager.PAGE_SHIFT;
+            for (int word = 0; word < takenPages.length; word++) {
+                state.dirtyPages[word] |= takenPages[word];
+                for (long bits = takenPages[word]; bits != 0; bits &= bits - 1) {
+                    int from = (word * Long.SIZE + Long.numberOfTrailingZeros(bits)) * pageSize;
+                    System.arraycopy(rMgr.memory, from, state.memory, from, pageSize);
+                }
+            }
         }
 
-        // header 갱신
-        String[] csInfo = resourceManager.csInfos.get(sicSimulator.curCs);
-        ui.programNameField.setText(csInfo[0]);
-        ui.startAddrField.setText(csInfo[1]);
-        ui.lengthField.setText(csInfo[2]);
+        // 로그는 목록과 지금까지의 길이만 넘긴다. 목록은 뒤에 덧붙기만 하므로 EDT는 이 길이 안의 줄을 그대로 읽는다.
+        List<String> logs = sicSimulator.getLogs();
+        state.logs = logs;
+        state.logCount = logs == null ? 0 : logs.size();
 
-        // end 갱신
-        ui.firstInstructionAddrField.setText(csInfo[1]);
+        pending.set(state);
+    }
+
+    /**
+     * 화면을 최신값으로 갱신하는 역할을 수행한다. 실행 스레드가 넘겨준 상태를 마지막으로 그린 상태와 비교해서 값이
+     * 바뀐 컴포넌트만 다시 그리며, 실행 중인 시뮬레이터를 기다리지 않는다. 실행 중이 아니면 현재 상태를 직접 복사한다.
+     */
+    public void update() {
+        if (ui == null) return;
+
+        // 버튼 활성화. 연속 실행 중에는 다른 실행이나 load를 받지 않는다.
+        boolean idle = runner == null;
+        ui.executeButton1Step.setEnabled(isLoaded && idle);
+        ui.executeButtonAll.setEnabled(isLoaded && idle);
+        ui.openButton.setEnabled(idle);
+
+        if (idle && isLoaded) publish();
+
+        ViewState state = pending.getAndSet(null);
+        if (state == null) return;
+        ViewState last = rendered;
+
+        // header, end 갱신
+        if (last == null || state.csInfo != last.csInfo) {
+            String[] csInfo = state.csInfo;
+            ui.programNameField.setText(csInfo[0]);
+            ui.startAddrField.setText(csInfo[1]);
+            ui.lengthField.setText(csInfo[2]);
+            ui.firstInstructionAddrField.setText(csInfo[1]);
+        }
 
         // register 갱신
         for (int i = 0; i < ui.regHexFields.length; i++) {
-            int value = resourceManager.getRegister(i);
+            int value = state.registers[i];
+            if (last != null && last.registers[i] == value) continue;
 
             ui.regHexFields[i].setText(String.format("%06X", value));
 
@@ -93,82 +251,178 @@ public class VisualSimulator {
         }
 
         // program startAddr
-        ui.memStartAddrField.setText(String.format("%06X", resourceManager.memStartAddr));
+        if (last == null || state.memStartAddr != last.memStartAddr) {
+            ui.memStartAddrField.setText(String.format("%06X", state.memStartAddr));
+        }
 
         // target address
-        ui.targetAddrField.setText(String.format("%X", sicSimulator.targetAddr));
+        if (last == null || state.targetAddr != last.targetAddr) {
+            ui.targetAddrField.setText(String.format("%X", state.targetAddr));
+        }
 
         // current device
-        ui.deviceField.setText(sicSimulator.useDev ? sicSimulator.curDev : "");
+        if (last == null || !Objects.equals(state.device, last.device)) {
+            ui.deviceField.setText(state.device);
+        }
+
+        // memory, 역어셈블. 넘겨받은 page만 사본에 반영하고 다시 해석한다. load 직후에는 전체를 해석한다.
+        state.copyPagesTo(displayResources.memory);
+        displayResources.addressIndex = state.addressIndex;
+        if (displayResources.heatmap != state.heatmap) {
+            // 켜진 heatmap은 memView.update에서 다시 그리므로, 꺼진 경우만 따로 지운다.
+            displayResources.heatmap = state.heatmap;
+            if (state.heatmap == null) ui.memView.refreshHeatmap();
+        }
+        ui.memView.update(state.dirtyPages, state.prevAddr, state.prevLen);
 
-        // memory
-        buildMemoryStyledView(ui.memArea, sicSimulator.prevAddr, sicSimulator.prevLen);
+        boolean redecoded = true;
+        if (last == null) predecoder.decodeAll();
+        else redecoded = predecoder.redecode(state.dirtyPages);
+        ui.disasmView.update(state.registers[8], redecoded);
 
         // log 갱신
-        updateLog(sicSimulator.getLogs());
+        if (last == null || state.logs != shownLogs || state.logCount > shownLogCount) {
+            updateLog(state.logs, state.logCount);
+        }
+
+        // 이전에 그린 상태를 비워서 실행 스레드가 다시 쓸 수 있게 한다.
+        ViewState free = last != null ? last : new ViewState();
+        free.clear();
+        spare.set(free);
+        rendered = state;
     };
 
     /**
-     * 메모리 전체를 표시한다.
-     * */
-    public void buildMemoryStyledView(JTextPane pane, int highlightStart, int highLightLen) {
-        StyledDocument doc = pane.getStyledDocument();
+     * 화면에 그리는 값들의 사본. memory에는 dirtyPages에 표시된 page만 최신 값이 들어 있다.
+     */
+    private static final class ViewState {
+        final int[] registers = new int[10];
+        String[] csInfo;
+        int memStartAddr;
+        int targetAddr;
+        String device;
+        int prevAddr, prevLen;
+        AddressIndex addressIndex;
+        MemoryHeatmap heatmap;
+        final byte[] memory = new byte[65536];
+        final long[] dirtyPages = new long[(memory.length >> ResourceManager.PAGE_SHIFT) / Long.SIZE];
+        List<String> logs;
+        int logCount;
+
+        void copyPagesTo(byte[] target) {
+            int pageSize = 1 << ResourceManager.PAGE_SHIFT;
+            for (int word = 0; word < dirtyPages.length; word++) {
+                for (long bits = dirtyPages[word]; bits != 0; bits &= bits - 1) {
+                    int from = (word * Long.SIZE + Long.numberOfTrailingZeros(bits)) * pageSize;
+                    System.arraycopy(memory, from, target, from, pageSize);
+                }
+            }
+        }
 
-        // 일반 스타일
-        SimpleAttributeSet normalStyle = new SimpleAttributeSet();
-        StyleConstants.setFontFamily(normalStyle, "Monospaced");
+        /**
+         * 덧붙여 둔 page를 비운다. 다른 값은 다음 복사에서 모두 덮어쓴다.
+         */
+        void clear() {
+            Arrays.fill(dirtyPages, 0);
+        }
+    }
 
-        // 강조 스타일
-        SimpleAttributeSet highlightStyle = new SimpleAttributeSet();
-        StyleConstants.setFontFamily(highlightStyle, "Monospaced");
-        StyleConstants.setBackground(highlightStyle, Color.yellow);
+    /**
+     * 명령어 실행 로그를 표시한다. 갱신마다 문서는 한 번만 편집한다. 보통은 지난 갱신 이후 추가된 로그를 뒤에 이어
+     * 붙이기만 하고, 표시 중인 로그가 logLimit보다 LOG_PAGE_SIZE줄 넘게 쌓이면 최근 LOG_VISIBLE_LIMIT줄로 다시 그린다.
+     * 화면에서 내린 로그는 showOlderLogs()로 다시 불러온다.
+     *
+     * @param logs  시뮬레이터의 로그 목록. 새로 load해서 목록이 바뀌었으면 처음부터 다시 그린다
+     * @param count 목록에서 읽어도 되는 줄 수. 실행 스레드가 넘겨준 시점의 목록 길이이다
+     * */
+    public void updateLog(List<String> logs, int count) {
+        AbstractDocument doc = (AbstractDocument) ui.logTextArea.getDocument();
+        boolean reset = logs != shownLogs;
+        shownLogs = logs;
+        shownLogCount = count;
+        int size = count;
 
-        pane.setText("");
+        try {
+            if (reset || size - logFirst > logLimit + LOG_PAGE_SIZE) {
+                logLimit = LOG_VISIBLE_LIMIT;
+                logFirst = Math.max(0, size - logLimit);
+                doc.replace(0, doc.getLength(), joinLogs(shownLogs, logFirst, size), null);
+            } else if (size > logEnd) {
+                doc.insertString(doc.getLength(), joinLogs(shownLogs, logEnd, size), null);
+            }
+            logEnd = size;
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+        }
 
-        int caretOffset = -1;
+        ui.olderLogButton.setEnabled(logFirst > 0);
+        ui.logTextArea.setCaretPosition(doc.getLength());
+    }
 
-        // 실행 중인 명령어 강조
-        // 주소 범위: highlightStart ~ highlightStart + highlightLen
-        try {
-            for (int addr = 0; addr < resourceManager.memory.length; addr++) {
-                if (addr % 16 == 0) {
-                    if (addr != 0) {
-                        doc.insertString(doc.getLength(), "\n", normalStyle);
-                    }
+    /**
+     * 화면에서 지워진 이전 로그를 LOG_PAGE_SIZE줄만큼 앞에 다시 불러온다. 표시 중인 로그가 LOG_HISTORY_LIMIT줄을
+     * 넘으면 가장 최근 로그부터 화면에서 내린다.
+     * */
+    public void showOlderLogs() {
+        if (logFirst == 0) return;
 
-                    doc.insertString(doc.getLength(), String.format("%04X: ", addr), normalStyle);
-                }
+        AbstractDocument doc = (AbstractDocument) ui.logTextArea.getDocument();
+        int from = Math.max(0, logFirst - LOG_PAGE_SIZE);
+        int to = Math.min(logEnd, from + LOG_HISTORY_LIMIT);
+        try {
+            if (to == logEnd) doc.insertString(0, joinLogs(shownLogs, from, logFirst), null);
+            else doc.replace(0, doc.getLength(), joinLogs(shownLogs, from, to), null);
+        } catch (BadLocationException e) {
+            throw new IllegalStateException(e);
+        }
+        logFirst = from;
+        logEnd = to;
+        logLimit = Math.max(logLimit, to - from);
 
-                byte b = resourceManager.readByte(addr);
-                String hex = String.format("%02X", b);
+        ui.olderLogButton.setEnabled(logFirst > 0);
+        ui.logTextArea.setCaretPosition(0);
+    }
 
-                if (addr >= highlightStart && addr < highlightStart + highLightLen) {
-                    caretOffset = doc.getLength();
-                    doc.insertString(doc.getLength(), hex, highlightStyle);
+    private static String joinLogs(List<String> logs, int from, int to) {
+        StringBuilder logsBuilder = new StringBuilder(lengthOf(logs, from, to));
+        for (int i = from; i < to; i++) {
+            logsBuilder.append(logs.get(i));
+        }
+        return logsBuilder.toString();
+    }
 
-                } else {
-                    doc.insertString(doc.getLength(), hex, normalStyle);
-                }
-            }
-        } catch (BadLocationException e) {
-            throw new RuntimeException(e);
+    private static int lengthOf(List<String> logs, int from, int to) {
+        int length = 0;
+        for (int i = from; i < to; i++) {
+            length += logs.get(i).length();
         }
+        return length;
+    }
 
-        // 커서 이동
-        pane.setCaretPosition(Math.max(caretOffset, 0));
+    /**
+     * 메모리 접근 heatmap 모드를 켜거나 끈다. 연속 실행 중이면 다음 batch 사이에 바뀌고, 다음 화면 갱신에서 메모리 화면에
+     * 반영된다.
+     * */
+    public void setHeatmapEnabled(boolean enabled) {
+        runOnSimulator(() -> resourceManager.setHeatmapEnabled(enabled));
+        update();
     }
 
     /**
-     * 명령어 실행 로그를 표시한다.
+     * 지금까지 기록한 heatmap을 파일로 저장한다. 확장자가 .csv이면 CSV로, 아니면 PNG 이미지로 저장한다. 연속 실행
+     * 중이면 저장하는 동안에도 횟수가 늘어날 수 있다.
      * */
-    public void updateLog(List<String> logs) {
-        StringBuilder logsBuilder = new StringBuilder();
-        for (String log : logs) {
-            logsBuilder.append(log);
-        }
+    public void exportHeatmap(File file) throws IOException {
+        MemoryHeatmap heatmap = displayResources.heatmap;
+        if (heatmap == null) throw new IllegalStateException("Heatmap mode is off");
+        heatmap.export(file);
+    }
 
-        ui.logTextArea.setText(logsBuilder.toString());
-        ui.logTextArea.setCaretPosition(ui.logTextArea.getDocument().getLength());
+    /**
+     * 디바이스별 입출력 통계를 돌려준다.
+     * */
+    public String getDeviceReport() {
+        return resourceManager.getDeviceReport();
     }
 
     public static void main(String[] args) {
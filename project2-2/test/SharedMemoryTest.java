@@ -0,0 +1,170 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * SharedMemory를 여러 스레드에서 동시에 사용했을 때 word 접근이 원자적인지 확인한다. 8byte 경계에 걸친 word(주소 % 8이
+ * 6, 7)는 lock으로, 나머지는 CAS로 접근하므로 두 경우를 모두 시험한다.
+ */
+public class SharedMemoryTest {
+    static final int THREADS = 8;
+    static final int ITERATIONS = 5000;
+    // 쓰기가 섞이는 경우를 잡아낼 만큼 충분히 많은 쓰기 횟수
+    static final int WRITES = 1_000_000;
+
+    // 서로 다른 두 값. 읽은 word가 둘 중 하나가 아니면 쓰기가 섞여 보인 것이다.
+    static final int PATTERN_A = 0x123456;
+    static final int PATTERN_B = 0xEDCBA9;
+
+    @Test
+    public void rejectsMemoryNotAlignedToLongs() {
+        assertThrows(IllegalArgumentException.class, () -> new SharedMemory(new byte[65535]));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 5, 6, 7})
+    public void swapWordReturnsPreviousValue(int offset) {
+        SharedMemory memory = new SharedMemory(new byte[65536]);
+        int address = 0x100 + offset;
+
+        memory.writeWord(address, PATTERN_A);
+        assertEquals(PATTERN_A, memory.swapWord(address, PATTERN_B));
+        assertEquals(PATTERN_B, memory.readWord(address));
+    }
+
+    /**
+     * TS 명령어와 같은 방법으로 lock을 잡고 counter를 늘린다. lock이 원자적이면 늘린 횟수가 하나도 사라지지 않는다.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {0, 3, 6, 7})
+    public void testAndSetLockProtectsCounter(int offset) throws Exception {
+        SharedMemory memory = new SharedMemory(new byte[65536]);
+        int lock = 0x200 + offset;
+        int counter = 0x300 + offset;
+
+        runConcurrently(THREADS, cpu -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                while (memory.swapWord(lock, 1) != 0) Thread.onSpinWait();
+                memory.writeWord(counter, memory.readWord(counter) + 1);
+                memory.writeWord(lock, 0);
+            }
+        });
+
+        assertEquals(THREADS * ITERATIONS, memory.readWord(counter));
+        assertEquals(0, memory.readWord(lock));
+    }
+
+    /**
+     * 스레드마다 서로 다른 값으로 swap한다. swap이 원자적이면 넣은 값은 모두 한 번씩 다른 swap의 원래 값으로 돌아오거나
+     * 마지막에 메모리에 남는다.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {0, 5, 6, 7})
+    public void concurrentSwapsLoseNoValue(int offset) throws Exception {
+        SharedMemory memory = new SharedMemory(new byte[65536]);
+        int address = 0x500 + offset;
+        BitSet[] returned = new BitSet[THREADS];
+
+        runConcurrently(THREADS, id -> {
+            BitSet seen = new BitSet();
+            for (int i = 1; i <= ITERATIONS; i++) seen.set(memory.swapWord(address, (id << 16) | i));
+            returned[id] = seen;
+        });
+
+        BitSet values = new BitSet();
+        values.set(memory.readWord(address));
+        int count = 1;
+        for (BitSet seen : returned) {
+            count += seen.cardinality();
+            values.or(seen);
+        }
+
+        // 처음 값 0과 넣은 값들이 빠짐없이, 한 번씩만 나타나야 한다.
+        assertEquals(THREADS * ITERATIONS + 1, count);
+        assertEquals(THREADS * ITERATIONS + 1, values.cardinality());
+        assertEquals(0, values.nextSetBit(0));
+        for (int id = 0; id < THREADS; id++) {
+            assertEquals(ITERATIONS, values.get((id << 16) + 1, (id << 16) + ITERATIONS + 1).cardinality());
+        }
+    }
+
+    /**
+     * 두 값을 번갈아 쓰는 동안 다른 스레드가 읽은 word는 항상 둘 중 하나여야 한다. 같은 8byte 안의 이웃 byte도 함께
+     * 쓰므로, byte 쓰기가 word를 덮어쓰지 않는지도 확인한다.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {0, 5, 6, 7})
+    public void wordWritesDoNotTear(int offset) throws Exception {
+        SharedMemory memory = new SharedMemory(new byte[65536]);
+        int address = 0x400 + offset;
+        int neighbour = offset == 0 ? address + 3 : address - 1;
+        memory.writeWord(address, PATTERN_A);
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger torn = new AtomicInteger();
+        runConcurrently(4, id -> {
+            switch (id) {
+                case 0 -> {
+                    for (int i = 0; i < WRITES; i++) memory.writeWord(address, (i & 1) == 0 ? PATTERN_B : PATTERN_A);
+                    memory.writeWord(address, PATTERN_A);
+                    done.set(true);
+                }
+                case 1 -> {
+                    for (int i = 0; !done.get(); i++) memory.writeByte(neighbour, (byte) i);
+                }
+                default -> {
+                    while (!done.get()) {
+                        int value = memory.readWord(address);
+                        if (value != PATTERN_A && value != PATTERN_B) torn.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        assertEquals(0, torn.get());
+        assertEquals(PATTERN_A, memory.readWord(address));
+    }
+
+    /**
+     * count개의 스레드를 동시에 출발시키고 모두 끝날 때까지 기다린다. 스레드에서 발생한 예외는 다시 던진다.
+     */
+    private static void runConcurrently(int count, Worker worker) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(count);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            int id = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    worker.run(id);
+                } catch (Throwable t) {
+                    synchronized (failures) {
+                        failures.add(t);
+                    }
+                }
+            }, "shared-memory-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        if (!failures.isEmpty()) throw new AssertionError("Worker failed", failures.get(0));
+    }
+
+    @FunctionalInterface
+    private interface Worker {
+        void run(int id) throws Exception;
+    }
+}